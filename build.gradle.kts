@@ -3,6 +3,7 @@ plugins {
     id("org.springframework.boot") version "2.7.6"
     id("io.spring.dependency-management") version "1.1.4"
     id("jacoco")
+    id("me.champeau.jmh") version "0.6.8"
 }
 jacoco {
     version = "0.8.7"
@@ -58,12 +59,24 @@ dependencies {
     testImplementation("org.springframework.boot:spring-boot-starter-test:2.6.4")
     testImplementation("org.projectlombok:lombok")
     testImplementation("com.github.tomakehurst:wiremock:2.27.2")
+    testImplementation("com.h2database:h2")
     testImplementation("org.springframework.security:spring-security-test:5.7.5")
 }
 
 
 
+jmh {
+    profilers.add("gc")
+}
+
 tasks.withType<Test> {
     useJUnitPlatform()
     finalizedBy(tasks.jacocoTestReport)
 }
+
+tasks.register<JavaExec>("jfrPhases") {
+    description = "Prints a per-endpoint phase breakdown of a JFR recording, -Precording=<file.jfr>"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.example.jfr.JfrPhaseAnalyzer")
+    args(project.findProperty("recording") ?: "recording.jfr")
+}
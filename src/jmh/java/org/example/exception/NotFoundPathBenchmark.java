@@ -0,0 +1,54 @@
+package org.example.exception;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous 404 path (stack trace, eager String.format, fresh ResponseEntity serialised as
+ * text) with the current one. Run with {@code ./gradlew jmh}; the gc profiler reports gc.alloc.rate.norm
+ * per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotFoundPathBenchmark {
+    private static final String TEMPLATE = "User %d does not exists. User can't be found";
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    private long userId = 1_000_000L;
+
+    @Benchmark
+    public int legacy() {
+        RuntimeException ex = new RuntimeException(String.format(TEMPLATE, ++userId));
+        ResponseEntity<String> response = new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+        out.reset();
+        byte[] body = response.getBody().getBytes(StandardCharsets.UTF_8);
+        out.write(body, 0, body.length);
+        return out.size();
+    }
+
+    @Benchmark
+    public int stacklessProblemDetails() throws IOException {
+        NotFoundEntityException ex = new NotFoundEntityException(TEMPLATE, ++userId);
+        out.reset();
+        ProblemDetails.write(out, HttpStatus.NOT_FOUND, ex.getTemplate(), ex.getArgument());
+        return out.size();
+    }
+}
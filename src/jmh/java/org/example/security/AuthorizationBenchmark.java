@@ -0,0 +1,103 @@
+package org.example.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.example.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorization overhead of an admin call to {@code GET /api/user/all}: the previous ant matcher
+ * chain with SpEL for the URL and {@code @PreAuthorize} for the method, against the compiled route
+ * table and {@link RoleRequirement}. Run with {@code ./gradlew jmh}; the gc profiler reports
+ * gc.alloc.rate.norm per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+    private final Map<AntPathRequestMatcher, Expression> urlRules = new LinkedHashMap<>();
+    private final DefaultWebSecurityExpressionHandler webExpressionHandler = new DefaultWebSecurityExpressionHandler();
+    private final DefaultMethodSecurityExpressionHandler methodExpressionHandler =
+            new DefaultMethodSecurityExpressionHandler();
+    private Expression urlDefault;
+    private Expression methodRule;
+    private FilterInvocation invocation;
+    private MethodInvocation methodInvocation;
+
+    private RouteAuthorizationManager routes;
+    private RoleRequirement adminOnly;
+    private RequestAuthorizationContext requestContext;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        urlRules.put(new AntPathRequestMatcher("/api/user/**"),
+                webExpressionHandler.getExpressionParser().parseExpression("hasAnyRole('ROLE_ADMIN','ROLE_USER')"));
+        urlRules.put(new AntPathRequestMatcher("/"),
+                webExpressionHandler.getExpressionParser().parseExpression("permitAll"));
+        urlRules.put(new AntPathRequestMatcher("/home"),
+                webExpressionHandler.getExpressionParser().parseExpression("permitAll"));
+        urlDefault = webExpressionHandler.getExpressionParser().parseExpression("authenticated");
+        methodRule = methodExpressionHandler.getExpressionParser().parseExpression("hasRole('ROLE_ADMIN')");
+        invocation = new FilterInvocation("", "/api/user/all", "GET");
+        methodInvocation = new SimpleMethodInvocation(this, AuthorizationBenchmark.class.getMethod("compiled"));
+
+        routes = RouteAuthorizationManager.builder()
+                .route(RoleRequirement.anyOf(UserRole.ROLE_ADMIN, UserRole.ROLE_USER), "/api/user/**")
+                .route(RoleRequirement.PERMIT_ALL, "/", "/home")
+                .otherwise(RoleRequirement.AUTHENTICATED);
+        adminOnly = RoleRequirement.anyOf(UserRole.ROLE_ADMIN);
+        requestContext = new RequestAuthorizationContext(invocation.getRequest());
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("admin", null,
+                Collections.singletonList(new SimpleGrantedAuthority(UserRole.ROLE_ADMIN.getAuthority())));
+        Expression urlRule = urlDefault;
+        for (Map.Entry<AntPathRequestMatcher, Expression> rule : urlRules.entrySet()) {
+            if (rule.getKey().matches(invocation.getRequest())) {
+                urlRule = rule.getValue();
+                break;
+            }
+        }
+        return ExpressionUtils.evaluateAsBoolean(urlRule,
+                webExpressionHandler.createEvaluationContext(authentication, invocation))
+                && ExpressionUtils.evaluateAsBoolean(methodRule,
+                methodExpressionHandler.createEvaluationContext(authentication, methodInvocation));
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        Authentication authentication = new UsernamePasswordAuthenticationToken("admin", null,
+                UserRole.ROLE_ADMIN.getAuthorities());
+        return routes.check(() -> authentication, requestContext).isGranted()
+                && adminOnly.isSatisfiedBy(authentication);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.batch;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.batch-lookup")
+public class BatchLookupProperties {
+    private int maxKeys = 1000;
+    private Duration window = Duration.ofMillis(2);
+    private int maxBatchSize = 500;
+}
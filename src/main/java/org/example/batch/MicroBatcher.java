@@ -0,0 +1,108 @@
+package org.example.batch;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merges lookups from concurrent callers into one load. The first caller to find no open batch becomes
+ * its leader: it waits up to {@code window} for other callers to add keys, or until {@code maxBatchSize}
+ * keys are pending, then loads the whole batch on its own thread and completes everyone's futures.
+ * Callers asking for a key that is already pending share its future, so identical lookups are loaded once.
+ * <p>
+ * Because the load runs on the leader's thread, it is attributed to the leader's request: it takes the leader's
+ * bulkhead permit and shows up in the leader's query stats and JFR events. Followers only wait on their futures.
+ */
+public class MicroBatcher<K, V> {
+    private final Function<Set<K>, Map<K, V>> loader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private boolean leaderWaiting;
+
+    public MicroBatcher(Function<Set<K>, Map<K, V>> loader, long window, TimeUnit unit, int maxBatchSize) {
+        this.loader = loader;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the loaded value of every key that was found; missing keys are absent from the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        boolean leader;
+        synchronized (lock) {
+            for (K key : keys) {
+                futures.put(key, pending.computeIfAbsent(key, ignored -> new CompletableFuture<>()));
+            }
+            leader = !leaderWaiting;
+            leaderWaiting = true;
+            if (pending.size() >= maxBatchSize) {
+                lock.notifyAll();
+            }
+        }
+        if (leader) {
+            load(awaitBatch());
+        }
+        Map<K, V> values = new LinkedHashMap<>();
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            V value = join(entry.getValue());
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        return values;
+    }
+
+    private Map<K, CompletableFuture<V>> awaitBatch() {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining = windowNanos;
+            while (remaining > 0 && pending.size() < maxBatchSize) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            Map<K, CompletableFuture<V>> batch = pending;
+            pending = new LinkedHashMap<>();
+            leaderWaiting = false;
+            return batch;
+        }
+    }
+
+    private void load(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = loader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (Throwable ex) {
+            // Followers would otherwise wait forever on futures nobody is left to complete
+            batch.values().forEach(future -> future.completeExceptionally(ex));
+            throw ex;
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
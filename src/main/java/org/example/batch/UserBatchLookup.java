@@ -0,0 +1,87 @@
+package org.example.batch;
+
+import org.example.entity.User;
+import org.example.entity.UserBatchRequest;
+import org.example.entity.UserBatchResult;
+import org.example.service.UserService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Serves batch lookups through one {@link MicroBatcher} per key type, so concurrent batch requests for
+ * overlapping keys share a single query.
+ */
+@Component
+@EnableConfigurationProperties(BatchLookupProperties.class)
+public class UserBatchLookup {
+    private final BatchLookupProperties properties;
+    private final MicroBatcher<Long, User> byId;
+    private final MicroBatcher<String, User> byUsername;
+    private final MicroBatcher<String, User> byEmail;
+
+    public UserBatchLookup(UserService userService, BatchLookupProperties properties) {
+        this.properties = properties;
+        long window = properties.getWindow().toNanos();
+        int maxBatchSize = properties.getMaxBatchSize();
+        this.byId = new MicroBatcher<>(userService::getUsersByIds, window, TimeUnit.NANOSECONDS, maxBatchSize);
+        this.byUsername = new MicroBatcher<>(userService::getUsersByUsernames, window, TimeUnit.NANOSECONDS,
+                maxBatchSize);
+        this.byEmail = new MicroBatcher<>(userService::getUsersByEmails, window, TimeUnit.NANOSECONDS,
+                maxBatchSize);
+    }
+
+    public UserBatchResult lookup(UserBatchRequest request) {
+        int keys = size(request.getIds()) + size(request.getUsernames()) + size(request.getEmails());
+        if (keys > properties.getMaxKeys()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + properties.getMaxKeys() + " keys can be looked up at once");
+        }
+        return new UserBatchResult(
+                resolve(request.getIds(), byId, Function.identity()),
+                resolve(request.getUsernames(), byUsername, UserBatchLookup::lowerCase),
+                resolve(request.getEmails(), byEmail, UserBatchLookup::lowerCase));
+    }
+
+    private static <K> UserBatchResult.Entries<K> resolve(List<K> keys, MicroBatcher<K, User> batcher,
+                                                          Function<K, K> normalize) {
+        if (keys == null) {
+            return null;
+        }
+        Map<K, K> normalized = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (key != null) {
+                normalized.putIfAbsent(key, normalize.apply(key));
+            }
+        }
+        Map<K, User> users = batcher.getAll(normalized.values());
+        Map<K, User> found = new LinkedHashMap<>();
+        List<K> notFound = new ArrayList<>();
+        normalized.forEach((key, normalizedKey) -> {
+            User user = users.get(normalizedKey);
+            if (user != null) {
+                found.put(key, user);
+            } else {
+                notFound.add(key);
+            }
+        });
+        return new UserBatchResult.Entries<>(found, notFound);
+    }
+
+    private static int size(List<?> keys) {
+        return keys == null ? 0 : keys.size();
+    }
+
+    private static String lowerCase(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
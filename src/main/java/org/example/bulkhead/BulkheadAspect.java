@@ -0,0 +1,68 @@
+package org.example.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.example.exception.BulkheadFullException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps concurrent calls per {@link TrafficClass} and binds the class to the calling thread so that
+ * {@link BulkheadRoutingDataSource} hands out a connection from the matching pool. Runs before the
+ * transaction interceptor, which is where the connection is acquired.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class BulkheadAspect {
+    private final BulkheadProperties properties;
+    private final Map<TrafficClass, Semaphore> permits = new EnumMap<>(TrafficClass.class);
+    private final Map<TrafficClass, Counter> rejections = new EnumMap<>(TrafficClass.class);
+
+    public BulkheadAspect(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            String tag = trafficClass.name().toLowerCase(Locale.ROOT);
+            Semaphore semaphore = new Semaphore(properties.forClass(trafficClass).getMaxConcurrentCalls(), true);
+            permits.put(trafficClass, semaphore);
+            rejections.put(trafficClass, Counter.builder("bulkhead.calls.rejected")
+                    .tag("class", tag)
+                    .register(meterRegistry));
+            Gauge.builder("bulkhead.calls.available", semaphore, Semaphore::availablePermits)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Around("@annotation(bulkhead)")
+    public Object isolate(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        if (BulkheadContext.isActive()) {
+            return joinPoint.proceed();
+        }
+        TrafficClass trafficClass = bulkhead.value();
+        Semaphore semaphore = permits.get(trafficClass);
+        long timeout = properties.forClass(trafficClass).getAcquireTimeout().toNanos();
+        if (!semaphore.tryAcquire(timeout, TimeUnit.NANOSECONDS)) {
+            rejections.get(trafficClass).increment();
+            throw new BulkheadFullException(trafficClass);
+        }
+        TrafficClass previous = BulkheadContext.enter(trafficClass);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            BulkheadContext.restore(previous);
+            semaphore.release();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.bulkhead;
+
+public final class BulkheadContext {
+    private static final ThreadLocal<TrafficClass> CURRENT = new ThreadLocal<>();
+
+    private BulkheadContext() {
+    }
+
+    public static TrafficClass current() {
+        TrafficClass trafficClass = CURRENT.get();
+        return trafficClass != null ? trafficClass : TrafficClass.INTERACTIVE;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static TrafficClass enter(TrafficClass trafficClass) {
+        TrafficClass previous = CURRENT.get();
+        CURRENT.set(trafficClass);
+        return previous;
+    }
+
+    static void restore(TrafficClass previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.bulkhead;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+    private Pool auth = new Pool();
+    private Pool interactive = new Pool();
+    private Pool admin = new Pool();
+
+    public Pool forClass(TrafficClass trafficClass) {
+        switch (trafficClass) {
+            case AUTH:
+                return auth;
+            case ADMIN:
+                return admin;
+            default:
+                return interactive;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int maxPoolSize = 10;
+        private int minIdle = 2;
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+        private int maxConcurrentCalls = 50;
+        private Duration acquireTimeout = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private final Map<TrafficClass, HikariDataSource> pools;
+
+    public BulkheadRoutingDataSource(Map<TrafficClass, HikariDataSource> pools) {
+        this.pools = new EnumMap<>(pools);
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(TrafficClass.INTERACTIVE));
+    }
+
+    public HikariDataSource getPool(TrafficClass trafficClass) {
+        return pools.get(trafficClass);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return BulkheadContext.current();
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.bulkhead;
+
+public enum TrafficClass {
+    AUTH,
+    INTERACTIVE,
+    ADMIN
+}
@@ -0,0 +1,20 @@
+package org.example.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.invalidation")
+public class CacheInvalidationProperties {
+    private boolean enabled = true;
+    private String nodeId = UUID.randomUUID().toString();
+    private Duration pollInterval = Duration.ofMillis(500);
+    private Duration gracePeriod = Duration.ofSeconds(2);
+    private Duration retention = Duration.ofMinutes(10);
+    private int batchSize = 1000;
+}
@@ -0,0 +1,205 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.service.UserChangedEvent;
+import org.example.sharding.BucketsMovedEvent;
+import org.example.sharding.ShardContext;
+import org.example.sharding.ShardRouter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-node cache invalidation over the {@code user_cache_invalidation} table. Writes append a row in
+ * the same transaction as the change; every node polls the table and feeds rows written by other nodes
+ * into {@link UserCacheInvalidator}.
+ * <p>
+ * Polling is keyed on the database clock, not on ids: auto-increment ids can commit out of order, so each
+ * poll re-reads a grace window behind the newest timestamp seen and skips rows it already applied.
+ * Invalidations are idempotent, so re-reading is harmless. Remote changes are visible within roughly
+ * {@code poll-interval} plus query time. A poll pages through the window on a {@code (created_at, id)} keyset
+ * until it reads a short page, so a burst larger than {@code batch-size} cannot pin the cursor in place.
+ * <p>
+ * With sharding the row lands on the shard of the changed user, so every shard is polled with its own cursor.
+ * A row without any user key announces that the bucket map changed; it is written to shard 0 and makes the
+ * other nodes reload their {@link ShardRouter}.
+ * <p>
+ * Polls run on a thread of their own rather than on the shared scheduler, so a slow snapshot or reconcile
+ * cannot hold back remote invalidations and {@code poll-interval} keeps bounding staleness.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+@ConditionalOnProperty(prefix = "app.cache.invalidation", name = "enabled", matchIfMissing = true)
+public class InvalidationLog implements InitializingBean, DisposableBean {
+    private static final String INSERT = "INSERT INTO user_cache_invalidation "
+            + "(user_id, username, email, previous_username, previous_email, origin_node) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT id, user_id, username, email, previous_username, previous_email, "
+            + "origin_node, created_at, TIMESTAMPDIFF(MICROSECOND, created_at, CURRENT_TIMESTAMP(3)) AS lag_micros "
+            + "FROM user_cache_invalidation "
+            + "WHERE created_at > ? OR (created_at = ? AND id > ?) ORDER BY created_at, id LIMIT ?";
+    private static final String PRUNE = "DELETE FROM user_cache_invalidation WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCacheInvalidator invalidator;
+    private final CacheInvalidationProperties properties;
+    private final Timer lag;
+    private final Counter applied;
+    private final ShardRouter shardRouter;
+    private final List<Cursor> cursors;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvalidationLog(JdbcTemplate jdbcTemplate, UserCacheInvalidator invalidator,
+                           CacheInvalidationProperties properties, MeterRegistry meterRegistry,
+                           ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidator = invalidator;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.cursors = new ArrayList<>(shardRouter.shardCount());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            cursors.add(new Cursor());
+        }
+        this.lag = Timer.builder("user.cache.invalidation.lag")
+                .description("Delay between a remote write and its invalidation being applied on this node")
+                .register(meterRegistry);
+        this.applied = Counter.builder("user.cache.invalidation.applied").register(meterRegistry);
+    }
+
+    public String getNodeId() {
+        return properties.getNodeId();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        jdbcTemplate.update(INSERT, event.getUserId(), event.getUsername(), event.getEmail(),
+                event.getPreviousUsername(), event.getPreviousEmail(), properties.getNodeId());
+    }
+
+    @EventListener
+    public void onBucketsMoved(BucketsMovedEvent event) {
+        try (ShardContext.Scope ignored = shardRouter.onShard(0)) {
+            jdbcTemplate.update(INSERT, null, null, null, null, null, properties.getNodeId());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long interval = properties.getPollInterval().toNanos();
+        poller.scheduleWithFixedDelay(this::pollSafely, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException ex) {
+            // An exception would cancel the periodic task for good
+            log.warn("Polling user cache invalidations failed: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized void poll() {
+        for (int shard = 0; shard < cursors.size(); shard++) {
+            try (ShardContext.Scope ignored = shardRouter.onShard(shard)) {
+                poll(cursors.get(shard));
+            } catch (DataAccessException ex) {
+                log.warn("Polling user cache invalidations on shard {} failed: {}", shard, ex.getMessage());
+            }
+        }
+    }
+
+    private void poll(Cursor cursor) {
+        if (cursor.highWaterMark == null) {
+            cursor.highWaterMark = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(created_at), CURRENT_TIMESTAMP(3)) FROM user_cache_invalidation",
+                    Timestamp.class);
+        }
+        Timestamp from = minus(cursor.highWaterMark, properties.getGracePeriod());
+        Timestamp afterCreatedAt = from;
+        long afterId = Long.MIN_VALUE;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(SELECT, afterCreatedAt, afterCreatedAt, afterId,
+                    properties.getBatchSize());
+            for (Map<String, Object> row : rows) {
+                apply(cursor, row);
+                afterCreatedAt = (Timestamp) row.get("created_at");
+                afterId = ((Number) row.get("id")).longValue();
+            }
+        } while (rows.size() >= properties.getBatchSize());
+        cursor.appliedIds.values().removeIf(createdAt -> createdAt.before(from));
+        prune(cursor);
+    }
+
+    private void apply(Cursor cursor, Map<String, Object> row) {
+        Long id = ((Number) row.get("id")).longValue();
+        Timestamp createdAt = (Timestamp) row.get("created_at");
+        if (createdAt.after(cursor.highWaterMark)) {
+            cursor.highWaterMark = createdAt;
+        }
+        if (cursor.appliedIds.putIfAbsent(id, createdAt) != null
+                || properties.getNodeId().equals(row.get("origin_node"))) {
+            return;
+        }
+        Number userId = (Number) row.get("user_id");
+        if (userId == null && row.get("username") == null && row.get("email") == null) {
+            shardRouter.reload();
+            return;
+        }
+        invalidator.invalidate(new UserInvalidation(userId == null ? null : userId.longValue(),
+                (String) row.get("username"), (String) row.get("email"),
+                (String) row.get("previous_username"), (String) row.get("previous_email")));
+        applied.increment();
+        // Both ends of the lag come from the database clock, so skew against this node does not show up
+        lag.record(((Number) row.get("lag_micros")).longValue(), TimeUnit.MICROSECONDS);
+    }
+
+    private void prune(Cursor cursor) {
+        Timestamp highWaterMark = cursor.highWaterMark;
+        if (cursor.lastPrune != null
+                && !cursor.lastPrune.before(minus(highWaterMark, properties.getRetention().dividedBy(10)))) {
+            return;
+        }
+        cursor.lastPrune = highWaterMark;
+        jdbcTemplate.update(PRUNE, minus(highWaterMark, properties.getRetention()));
+    }
+
+    private static Timestamp minus(Timestamp timestamp, Duration duration) {
+        return Timestamp.from(timestamp.toInstant().minus(duration));
+    }
+
+    private static class Cursor {
+        private final Map<Long, Timestamp> appliedIds = new HashMap<>();
+        private Timestamp highWaterMark;
+        private Timestamp lastPrune;
+    }
+}
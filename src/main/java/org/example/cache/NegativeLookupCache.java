@@ -0,0 +1,57 @@
+package org.example.cache;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers lookups that found nothing for a short TTL so repeated misses on the same key (scanners,
+ * retries) skip the database. Entries are dropped once a write that could satisfy the key commits; a
+ * miss recorded by a read racing that commit can survive at most one TTL.
+ */
+@Component
+@EnableConfigurationProperties(NegativeLookupCacheProperties.class)
+public class NegativeLookupCache implements UserInvalidationListener {
+    private final Map<UserLookupKey, Long> misses = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public NegativeLookupCache(NegativeLookupCacheProperties properties) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.maxEntries = properties.getMaxEntries();
+    }
+
+    public boolean isMissing(UserLookupKey key) {
+        Long expiresAt = misses.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() > 0) {
+            return true;
+        }
+        misses.remove(key, expiresAt);
+        return false;
+    }
+
+    public void recordMiss(UserLookupKey key) {
+        long now = System.nanoTime();
+        if (misses.size() >= maxEntries) {
+            misses.values().removeIf(expiresAt -> expiresAt - now <= 0);
+            if (misses.size() >= maxEntries) {
+                return;
+            }
+        }
+        misses.put(key, now + ttlNanos);
+    }
+
+    public void invalidate(UserLookupKey key) {
+        misses.remove(key);
+    }
+
+    @Override
+    public void invalidate(UserInvalidation invalidation) {
+        invalidation.keys().forEach(this::invalidate);
+    }
+}
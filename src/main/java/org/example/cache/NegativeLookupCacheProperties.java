@@ -0,0 +1,15 @@
+package org.example.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.negative")
+public class NegativeLookupCacheProperties {
+    private Duration ttl = Duration.ofSeconds(2);
+    private int maxEntries = 10_000;
+}
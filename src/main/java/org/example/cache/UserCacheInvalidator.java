@@ -0,0 +1,26 @@
+package org.example.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.example.service.UserChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+    private final List<UserInvalidationListener> listeners;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(UserInvalidation.of(event));
+    }
+
+    public void invalidate(UserInvalidation invalidation) {
+        for (UserInvalidationListener listener : listeners) {
+            listener.invalidate(invalidation);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.sharding.ShardRouter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Persists {@link UserLookupCache} to a memory-mapped file so a restarted node starts warm. The snapshot
+ * is restored before the web server accepts traffic and is then revalidated in the background by
+ * comparing each user's {@code change_seq} with the table; users that changed or were deleted while the
+ * node was down are invalidated through {@link UserCacheInvalidator}, so responses cached from the stale
+ * rows go as well, and the rest are marked verified. Until that finishes restored users can be served
+ * stale to reads, but authentication skips them and goes to the database.
+ * <p>
+ * Layout, big-endian: magic, format version, entry count, write time in epoch millis, then per user
+ * id, change_seq (-1 when unknown), then length-prefixed UTF-8 username, email, password hash and role name.
+ * Files written with another format version are ignored. The file holds password hashes, so it is created readable by the owner only.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.cache.lookup.snapshot", name = "enabled", matchIfMissing = true)
+public class UserCacheSnapshot implements InitializingBean, DisposableBean, SchedulingConfigurer {
+    private static final int MAGIC = 0x554C4331;
+    private static final short FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 8;
+    private static final int REVALIDATE_CHUNK_SIZE = 500;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    private final UserLookupCache cache;
+    private final UserCacheInvalidator invalidator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final Path path;
+    private final Duration interval;
+    private final Timer writeTimer;
+    private final Timer loadTimer;
+    private final Timer revalidateTimer;
+    private final Counter revalidationEvictions;
+    private volatile int lastWrittenEntries;
+
+    public UserCacheSnapshot(UserLookupCache cache, UserCacheInvalidator invalidator, JdbcTemplate jdbcTemplate,
+                             ShardRouter shardRouter, UserLookupCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.invalidator = invalidator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.path = properties.getSnapshot().getPath();
+        this.interval = properties.getSnapshot().getInterval();
+        this.writeTimer = Timer.builder("user.cache.snapshot.write").register(meterRegistry);
+        this.loadTimer = Timer.builder("user.cache.snapshot.load").register(meterRegistry);
+        this.revalidateTimer = Timer.builder("user.cache.snapshot.revalidate").register(meterRegistry);
+        this.revalidationEvictions = Counter.builder("user.cache.snapshot.revalidation.evicted")
+                .register(meterRegistry);
+        Gauge.builder("user.cache.snapshot.entries", this, snapshot -> snapshot.lastWrittenEntries)
+                .register(meterRegistry);
+        Gauge.builder("user.cache.lookup.size", cache, UserLookupCache::size).register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            List<User> users = loadTimer.recordCallable(this::read);
+            cache.restore(users);
+            log.info("Restored {} users from {}", users.size(), path);
+        } catch (Exception ex) {
+            log.warn("Ignoring unreadable user cache snapshot {}: {}", path, ex.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revalidateInBackground() {
+        if (cache.size() == 0) {
+            return;
+        }
+        Thread thread = new Thread(() -> revalidateTimer.record(this::revalidate), "user-cache-revalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new IntervalTask(this::snapshot, interval.toMillis(), interval.toMillis()));
+    }
+
+    public void snapshot() {
+        try {
+            writeTimer.recordCallable(() -> {
+                write(cache.users());
+                return null;
+            });
+        } catch (Exception ex) {
+            log.warn("Writing user cache snapshot {} failed: {}", path, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        snapshot();
+    }
+
+    void revalidate() {
+        List<User> users = cache.users();
+        users.sort(Comparator.comparing(User::getId));
+        for (int from = 0; from < users.size(); from += REVALIDATE_CHUNK_SIZE) {
+            List<User> chunk = users.subList(from, Math.min(users.size(), from + REVALIDATE_CHUNK_SIZE));
+            Map<Long, Long> current = new HashMap<>();
+            try {
+                List<long[]> rows = shardRouter.scatter(() -> jdbcTemplate.query(
+                        "SELECT id, change_seq FROM user WHERE id IN (" + placeholders(chunk.size()) + ")",
+                        (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("change_seq")},
+                        chunk.stream().map(User::getId).toArray()), Comparator.comparingLong(row -> row[0]));
+                rows.forEach(row -> current.put(row[0], row[1]));
+            } catch (DataAccessException ex) {
+                log.warn("Revalidating restored users failed, dropping them: {}", ex.getMessage());
+                chunk.forEach(this::evict);
+                continue;
+            }
+            for (User user : chunk) {
+                Long changeSeq = current.get(user.getId());
+                if (changeSeq == null || !changeSeq.equals(user.getChangeSeq())) {
+                    evict(user);
+                    revalidationEvictions.increment();
+                } else {
+                    cache.verify(user);
+                }
+            }
+        }
+    }
+
+    private void evict(User user) {
+        invalidator.invalidate(new UserInvalidation(user.getId(), user.getUsername(), user.getEmail(), null, null));
+    }
+
+    void write(List<User> users) throws IOException {
+        List<byte[][]> encoded = new ArrayList<>(users.size());
+        long size = HEADER_SIZE;
+        for (User user : users) {
+            byte[][] strings = {bytes(user.getUsername()), bytes(user.getEmail()), bytes(user.getPassword()),
+                    bytes(user.getUserRole().name())};
+            encoded.add(strings);
+            size += 8 + 8 + strings.length * 2;
+            for (byte[] string : strings) {
+                size += string.length;
+            }
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+        createOwnerOnly(temporary);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putShort(FORMAT_VERSION).putInt(users.size()).putLong(System.currentTimeMillis());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                buffer.putLong(user.getId());
+                buffer.putLong(user.getChangeSeq() == null ? -1 : user.getChangeSeq());
+                for (byte[] string : encoded.get(i)) {
+                    buffer.putShort((short) string.length).put(string);
+                }
+            }
+            buffer.force();
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        lastWrittenEntries = users.size();
+    }
+
+    List<User> read() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC
+                    || buffer.getShort() != FORMAT_VERSION) {
+                throw new IOException("not a user cache snapshot");
+            }
+            int count = buffer.getInt();
+            buffer.getLong();
+            List<User> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = buffer.getLong();
+                long changeSeq = buffer.getLong();
+                User user = new User(id, string(buffer), string(buffer), string(buffer), role(string(buffer)));
+                user.setChangeSeq(changeSeq < 0 ? null : changeSeq);
+                users.add(user);
+            }
+            return users;
+        }
+    }
+
+    private static void createOwnerOnly(Path file) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        } else {
+            Files.createFile(file);
+            file.toFile().setReadable(false, false);
+            file.toFile().setReadable(true, true);
+            file.toFile().setWritable(true, true);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UserRole role(String name) throws IOException {
+        try {
+            return UserRole.valueOf(name);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("unknown role " + name);
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+}
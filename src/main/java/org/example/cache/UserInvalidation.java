@@ -0,0 +1,35 @@
+package org.example.cache;
+
+import org.example.service.UserChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record UserInvalidation(Long userId, String username, String email,
+                               String previousUsername, String previousEmail) {
+
+    public static UserInvalidation of(UserChangedEvent event) {
+        return new UserInvalidation(event.getUserId(), event.getUsername(), event.getEmail(),
+                event.getPreviousUsername(), event.getPreviousEmail());
+    }
+
+    public List<UserLookupKey> keys() {
+        List<UserLookupKey> keys = new ArrayList<>(5);
+        if (userId != null) {
+            keys.add(UserLookupKey.id(userId));
+        }
+        if (username != null) {
+            keys.add(UserLookupKey.username(username));
+        }
+        if (email != null) {
+            keys.add(UserLookupKey.email(email));
+        }
+        if (previousUsername != null && !previousUsername.equalsIgnoreCase(username)) {
+            keys.add(UserLookupKey.username(previousUsername));
+        }
+        if (previousEmail != null && !previousEmail.equalsIgnoreCase(email)) {
+            keys.add(UserLookupKey.email(previousEmail));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.cache;
+
+public interface UserInvalidationListener {
+    void invalidate(UserInvalidation invalidation);
+}
@@ -0,0 +1,192 @@
+package org.example.cache;
+
+import org.example.entity.User;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot working set of user lookups, by id with username and email indexes on top. Cached users are
+ * detached copies and must not be modified by callers.
+ * <p>
+ * A load that races a committing write must not put the old row back after it was invalidated, so
+ * callers read {@link #version()} before going to the database and hand it to {@link #put(User, long)};
+ * the put is dropped when any invalidation happened in between.
+ * <p>
+ * Users restored from a snapshot are unverified until {@link #verify(User)} confirms them against the table;
+ * {@link #getVerified(UserLookupKey)} skips them, so authentication never trusts a pre-restart row.
+ */
+@Component
+@EnableConfigurationProperties(UserLookupCacheProperties.class)
+public class UserLookupCache implements UserInvalidationListener {
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> byEmail = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final int maxEntries;
+
+    public UserLookupCache(UserLookupCacheProperties properties) {
+        this.maxEntries = properties.getMaxEntries();
+    }
+
+    public User get(UserLookupKey key) {
+        Entry entry = entryOf(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.user;
+    }
+
+    public User getVerified(UserLookupKey key) {
+        Entry entry = entryOf(key);
+        if (entry == null || !entry.verified) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.user;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public void put(User user, long expectedVersion) {
+        if (maxEntries <= 0 || version.get() != expectedVersion) {
+            return;
+        }
+        store(copyOf(user), true);
+        if (version.get() != expectedVersion) {
+            evict(user.getId());
+        }
+    }
+
+    /**
+     * Adds users restored from a snapshot; they are not checked against invalidations.
+     */
+    public void restore(Collection<User> users) {
+        for (User user : users) {
+            if (byId.size() >= maxEntries) {
+                return;
+            }
+            store(user, false);
+        }
+    }
+
+    /**
+     * Marks a restored user as confirmed; ignored when the entry was replaced or evicted in the meantime.
+     */
+    public void verify(User user) {
+        Entry entry = byId.get(user.getId());
+        if (entry != null && entry.user == user) {
+            entry.verified = true;
+        }
+    }
+
+    public List<User> users() {
+        List<User> users = new ArrayList<>(byId.size());
+        byId.values().forEach(entry -> users.add(entry.user));
+        return users;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void evict(Long userId) {
+        Entry entry = byId.remove(userId);
+        if (entry != null) {
+            byUsername.remove(normalize(entry.user.getUsername()), userId);
+            byEmail.remove(normalize(entry.user.getEmail()), userId);
+        }
+    }
+
+    public void clear() {
+        version.incrementAndGet();
+        byId.clear();
+        byUsername.clear();
+        byEmail.clear();
+    }
+
+    @Override
+    public void invalidate(UserInvalidation invalidation) {
+        version.incrementAndGet();
+        if (invalidation.userId() != null) {
+            evict(invalidation.userId());
+        }
+        for (UserLookupKey key : invalidation.keys()) {
+            Long userId = idOf(key);
+            if (userId != null) {
+                evict(userId);
+            }
+        }
+    }
+
+    private void store(User user, boolean verified) {
+        if (byId.size() >= maxEntries) {
+            trim();
+        }
+        byId.put(user.getId(), new Entry(user, verified));
+        byUsername.put(normalize(user.getUsername()), user.getId());
+        byEmail.put(normalize(user.getEmail()), user.getId());
+    }
+
+    private synchronized void trim() {
+        if (byId.size() < maxEntries) {
+            return;
+        }
+        // Drop the least recently used tenth in one go so the sort is paid rarely
+        List<Map.Entry<Long, Entry>> entries = new ArrayList<>(byId.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        for (int i = 0; i < Math.max(1, maxEntries / 10) && i < entries.size(); i++) {
+            evict(entries.get(i).getKey());
+        }
+    }
+
+    private Entry entryOf(UserLookupKey key) {
+        Long userId = idOf(key);
+        return userId == null ? null : byId.get(userId);
+    }
+
+    private Long idOf(UserLookupKey key) {
+        switch (key.type()) {
+            case ID:
+                return Long.valueOf(key.value());
+            case USERNAME:
+                return byUsername.get(key.value());
+            default:
+                return byEmail.get(key.value());
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                user.getUserRole());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setChangeSeq(user.getChangeSeq());
+        return copy;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final User user;
+        private volatile long lastAccess = System.nanoTime();
+        private volatile boolean verified;
+
+        private Entry(User user, boolean verified) {
+            this.user = user;
+            this.verified = verified;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.lookup")
+public class UserLookupCacheProperties {
+    private int maxEntries = 10_000;
+    private Snapshot snapshot = new Snapshot();
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+        private boolean enabled = true;
+        private Path path = Path.of("data", "user-lookup-cache.snapshot");
+        private Duration interval = Duration.ofMinutes(5);
+    }
+}
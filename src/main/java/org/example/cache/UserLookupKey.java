@@ -0,0 +1,28 @@
+package org.example.cache;
+
+import java.util.Locale;
+
+public record UserLookupKey(Type type, String value) {
+
+    public enum Type {
+        ID,
+        USERNAME,
+        EMAIL
+    }
+
+    public static UserLookupKey id(Long id) {
+        return new UserLookupKey(Type.ID, String.valueOf(id));
+    }
+
+    public static UserLookupKey username(String username) {
+        return new UserLookupKey(Type.USERNAME, normalize(username));
+    }
+
+    public static UserLookupKey email(String email) {
+        return new UserLookupKey(Type.EMAIL, normalize(email));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded JSON (and gzip) bodies of single-user responses, so hot reads skip Jackson entirely.
+ * Bounded by the total size of the cached bodies rather than by entry count.
+ * <p>
+ * Uses the same version guard as {@link UserLookupCache}: a body encoded from a load that raced a
+ * committing write is not cached.
+ */
+@Component
+@EnableConfigurationProperties(UserResponseCacheProperties.class)
+public class UserResponseCache implements UserInvalidationListener {
+    // Rough cost of the key, the entry and the map nodes on top of the body itself
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final Map<UserResponseKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<UserLookupKey, Set<UserResponseKey>> byLookup = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserResponseCache(ObjectMapper objectMapper, UserResponseCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = properties.getMaxSize().toBytes();
+        this.hits = Counter.builder("user.cache.response.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.cache.response.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("user.cache.response.bytes", bytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("user.cache.response.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached body for the key, or encodes the value supplied by the loader and caches it.
+     * Exceptions thrown by the loader are propagated and nothing is cached.
+     */
+    public byte[] body(UserResponseKey key, Supplier<?> loader) throws IOException {
+        if (!MediaType.APPLICATION_JSON.isCompatibleWith(key.contentType())) {
+            throw new IllegalArgumentException("Unsupported content type " + key.contentType());
+        }
+        byte[] body = get(key);
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+        misses.increment();
+        long expectedVersion = version.get();
+        byte[] json = key.gzip() ? get(key.identity()) : null;
+        if (json == null) {
+            json = objectMapper.writeValueAsBytes(loader.get());
+            put(key.identity(), json, expectedVersion);
+        }
+        if (!key.gzip()) {
+            return json;
+        }
+        body = gzip(json);
+        put(key, body, expectedVersion);
+        return body;
+    }
+
+    public long size() {
+        return bytes.get();
+    }
+
+    public void clear() {
+        version.incrementAndGet();
+        new ArrayList<>(entries.keySet()).forEach(this::remove);
+    }
+
+    @Override
+    public void invalidate(UserInvalidation invalidation) {
+        version.incrementAndGet();
+        for (UserLookupKey lookup : invalidation.keys()) {
+            Set<UserResponseKey> keys = byLookup.remove(lookup);
+            if (keys != null) {
+                keys.forEach(this::remove);
+            }
+        }
+    }
+
+    private byte[] get(UserResponseKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.body;
+    }
+
+    private void put(UserResponseKey key, byte[] body, long expectedVersion) {
+        Entry entry = new Entry(body);
+        if (entry.size > maxBytes || version.get() != expectedVersion) {
+            return;
+        }
+        byLookup.computeIfAbsent(key.lookup(), lookup -> ConcurrentHashMap.newKeySet()).add(key);
+        Entry previous = entries.put(key, entry);
+        bytes.addAndGet(entry.size - (previous == null ? 0 : previous.size));
+        if (version.get() != expectedVersion) {
+            remove(key);
+        }
+        if (bytes.get() > maxBytes) {
+            trim();
+        }
+    }
+
+    private void remove(UserResponseKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes.addAndGet(-entry.size);
+        }
+        byLookup.computeIfPresent(key.lookup(), (lookup, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private synchronized void trim() {
+        if (bytes.get() <= maxBytes) {
+            return;
+        }
+        // Free a tenth of the budget in one go so the sort is paid rarely
+        long target = maxBytes - maxBytes / 10;
+        List<Map.Entry<UserResponseKey, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+        for (Map.Entry<UserResponseKey, Entry> candidate : candidates) {
+            if (bytes.get() <= target) {
+                return;
+            }
+            remove(candidate.getKey());
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Entry {
+        private final byte[] body;
+        private final long size;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(byte[] body) {
+            this.body = body;
+            this.size = body.length + ENTRY_OVERHEAD;
+        }
+    }
+}
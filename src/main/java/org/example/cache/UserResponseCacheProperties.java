@@ -0,0 +1,13 @@
+package org.example.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache.response")
+public class UserResponseCacheProperties {
+    private DataSize maxSize = DataSize.ofMegabytes(16);
+}
@@ -0,0 +1,14 @@
+package org.example.cache;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Identifies one encoded response body: which user lookup it answers, which projection of the user
+ * was serialized, in which content type and whether the bytes are gzip compressed.
+ */
+public record UserResponseKey(UserLookupKey lookup, String projection, MediaType contentType, boolean gzip) {
+
+    public UserResponseKey identity() {
+        return gzip ? new UserResponseKey(lookup, projection, contentType, false) : this;
+    }
+}
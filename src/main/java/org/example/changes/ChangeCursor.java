@@ -0,0 +1,57 @@
+package org.example.changes;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Position in the change feed: the last change sequence read from each shard, written as
+ * comma-separated numbers. An empty cursor starts from the beginning.
+ */
+final class ChangeCursor {
+    private final long[] sequences;
+
+    private ChangeCursor(long[] sequences) {
+        this.sequences = sequences;
+    }
+
+    static ChangeCursor parse(String cursor, int shardCount) {
+        long[] sequences = new long[shardCount];
+        if (cursor == null || cursor.isBlank()) {
+            return new ChangeCursor(sequences);
+        }
+        String[] parts = cursor.split(",");
+        if (parts.length != shardCount) {
+            throw new IllegalArgumentException("Cursor does not match the number of shards");
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            sequences[shard] = Long.parseLong(parts[shard].trim());
+            if (sequences[shard] < 0) {
+                throw new IllegalArgumentException("Cursor must not be negative");
+            }
+        }
+        return new ChangeCursor(sequences);
+    }
+
+    int shardCount() {
+        return sequences.length;
+    }
+
+    long get(int shard) {
+        return sequences[shard];
+    }
+
+    ChangeCursor with(int shard, long sequence) {
+        long[] copy = Arrays.copyOf(sequences, sequences.length);
+        copy[shard] = sequence;
+        return new ChangeCursor(copy);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (long sequence : sequences) {
+            joiner.add(Long.toString(sequence));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.changes;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.changes")
+public class ChangeFeedProperties {
+    private int defaultLimit = 100;
+    private int maxLimit = 1000;
+    private Duration pollTimeout = Duration.ofSeconds(30);
+    private int maxWaiters = 1000;
+    private Duration tombstoneRetention = Duration.ofDays(30);
+    private Duration settleTime = Duration.ofMillis(500);
+}
@@ -0,0 +1,23 @@
+package org.example.changes;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * Hands out change sequence numbers from the {@code user_change_seq} auto-increment table of a shard. The
+ * insert holds the auto-increment lock for the statement only, so concurrent writers do not queue behind a
+ * counter row until they commit; {@link UserChangeLog} describes the ordering readers get in return.
+ */
+public final class ChangeSequence {
+    private static final String ALLOCATE = "INSERT INTO user_change_seq (created_at) VALUES (CURRENT_TIMESTAMP(3))";
+
+    private ChangeSequence() {
+    }
+
+    public static long next(JdbcTemplate jdbcTemplate) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> connection.prepareStatement(ALLOCATE, new String[]{"seq"}), keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
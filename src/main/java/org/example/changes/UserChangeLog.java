@@ -0,0 +1,302 @@
+package org.example.changes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cache.UserInvalidation;
+import org.example.cache.UserInvalidationListener;
+import org.example.entity.User;
+import org.example.entity.UserChanges;
+import org.example.repository.UserRepository;
+import org.example.service.UserChangedEvent;
+import org.example.sharding.ShardContext;
+import org.example.sharding.ShardRouter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change feed over the {@code user} table. Every committed write stamps the row (or a tombstone for
+ * deletes) with a number from the shard's {@link ChangeSequence}. Numbers are taken right before commit,
+ * but two writers can still commit in the opposite order of their numbers, so a page only reaches up to the
+ * newest number handed out at least {@code settle-time} ago, measured on the database clock.
+ * <p>
+ * Guarantee for mirrors: per shard, a reader that has seen {@code n} never later finds a change numbered
+ * {@code n} or below, as long as every commit completes within {@code settle-time} of taking its number.
+ * A commit slower than that can be skipped; the feed therefore trails the writes by {@code settle-time}.
+ * <p>
+ * Tombstones left behind by the shard rebalancer carry the target shard; they advance the cursor but are not
+ * reported as deletes, since the moved user shows up as an update on its new shard.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class UserChangeLog implements UserInvalidationListener, DisposableBean {
+    private static final Duration WAKE_MARGIN = Duration.ofMillis(20);
+    private static final String STAMP_USER = "UPDATE user SET change_seq = ?, updated_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE id = ?";
+    private static final String INSERT_TOMBSTONE = "INSERT INTO user_tombstone (user_id, change_seq) VALUES (?, ?)";
+    private static final String SELECT_HORIZON = "SELECT COALESCE((SELECT seq FROM user_change_seq "
+            + "WHERE created_at <= TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(3)) ORDER BY seq DESC LIMIT 1), 0) "
+            + "AS settled_seq, pruned_seq FROM user_change_sequence WHERE id = 1";
+    private static final String SELECT_TOMBSTONES = "SELECT user_id, change_seq, moved_to_shard FROM user_tombstone "
+            + "WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final ChangeFeedProperties properties;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-change-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserChangeLog(JdbcTemplate jdbcTemplate, EntityManager entityManager, UserRepository userRepository,
+                         ShardRouter shardRouter, ChangeFeedProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        // Pending inserts and deletes have to reach the table before it is stamped
+        entityManager.flush();
+        long changeSeq = ChangeSequence.next(jdbcTemplate);
+        if (event.getType() == UserChangedEvent.ChangeType.DELETED) {
+            jdbcTemplate.update(INSERT_TOMBSTONE, event.getUserId(), changeSeq);
+        } else {
+            jdbcTemplate.update(STAMP_USER, changeSeq, event.getUserId());
+        }
+    }
+
+    public UserChanges changes(String since, Integer limit) {
+        int pageSize = limit == null ? properties.getDefaultLimit()
+                : Math.max(1, Math.min(limit, properties.getMaxLimit()));
+        ChangeCursor cursor = cursor(since);
+        List<User> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        boolean hasMore = false;
+        boolean resyncRequired = false;
+        for (int shard = 0; shard < cursor.shardCount(); shard++) {
+            int remaining = pageSize - updated.size() - deleted.size();
+            if (remaining <= 0) {
+                hasMore = true;
+                break;
+            }
+            try (ShardContext.Scope ignored = shardRouter.onShard(shard)) {
+                long from = cursor.get(shard);
+                Horizon horizon = horizon();
+                long lastSeq = horizon.settledSeq();
+                if (from > 0 && from < horizon.prunedSeq()) {
+                    resyncRequired = true;
+                    continue;
+                }
+                long next = read(from, lastSeq, remaining, updated, deleted);
+                cursor = cursor.with(shard, next);
+                hasMore |= next < lastSeq;
+            }
+        }
+        return UserChanges.builder()
+                .updated(updated)
+                .deleted(deleted)
+                .cursor(cursor.toString())
+                .hasMore(hasMore)
+                .resyncRequired(resyncRequired)
+                .build();
+    }
+
+    /**
+     * Returns the changes after {@code since} once there are any, or an empty page after the poll timeout.
+     */
+    public DeferredResult<UserChanges> poll(String since, Integer limit) {
+        long seenVersion = version.get();
+        UserChanges changes = changes(since, limit);
+        DeferredResult<UserChanges> result = new DeferredResult<>(properties.getPollTimeout().toMillis(), changes);
+        if (!isEmpty(changes) || waiterCount.get() >= properties.getMaxWaiters()) {
+            result.setResult(changes);
+            return result;
+        }
+        Waiter waiter = new Waiter(since, limit, result);
+        waiterCount.incrementAndGet();
+        result.onCompletion(() -> {
+            waiters.remove(waiter);
+            waiterCount.decrementAndGet();
+        });
+        waiters.add(waiter);
+        if (version.get() != seenVersion) {
+            wake();
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidate(UserInvalidation invalidation) {
+        version.incrementAndGet();
+        if (!waiters.isEmpty()) {
+            wake();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.changes.prune-interval:3600000}")
+    public void pruneTombstones() {
+        Timestamp horizon = Timestamp.from(Instant.now().minus(properties.getTombstoneRetention()));
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            try (ShardContext.Scope ignored = shardRouter.onShard(shard)) {
+                Long prunedSeq = jdbcTemplate.queryForObject(
+                        "SELECT MAX(change_seq) FROM user_tombstone WHERE deleted_at < ?", Long.class, horizon);
+                if (prunedSeq != null) {
+                    jdbcTemplate.update(
+                            "UPDATE user_change_sequence SET pruned_seq = GREATEST(pruned_seq, ?) WHERE id = 1",
+                            prunedSeq);
+                    jdbcTemplate.update("DELETE FROM user_tombstone WHERE change_seq <= ?", prunedSeq);
+                }
+                // The newest number stays, MySQL 5.7 would otherwise restart the auto-increment below it
+                Long newestSeq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM user_change_seq", Long.class);
+                if (newestSeq != null) {
+                    jdbcTemplate.update("DELETE FROM user_change_seq WHERE seq < ? AND created_at < ?",
+                            newestSeq, horizon);
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Pruning user tombstones on shard {} failed: {}", shard, ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        notifier.shutdownNow();
+    }
+
+    private Horizon horizon() {
+        return jdbcTemplate.queryForObject(SELECT_HORIZON,
+                (rs, rowNum) -> new Horizon(rs.getLong("settled_seq"), rs.getLong("pruned_seq")),
+                -properties.getSettleTime().toNanos() / 1_000);
+    }
+
+    private ChangeCursor cursor(String since) {
+        try {
+            return ChangeCursor.parse(since, shardRouter.shardCount());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid change cursor: " + ex.getMessage());
+        }
+    }
+
+    private long read(long from, long lastSeq, int limit, List<User> updated, List<Long> deleted) {
+        if (lastSeq <= from) {
+            return from;
+        }
+        List<User> users = userRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(from,
+                PageRequest.of(0, limit));
+        List<long[]> tombstones = jdbcTemplate.query(SELECT_TOMBSTONES,
+                (rs, rowNum) -> new long[]{rs.getLong("user_id"), rs.getLong("change_seq"),
+                        rs.getObject("moved_to_shard") == null ? 0 : 1}, from, lastSeq, limit);
+        long next = from;
+        int userIndex = 0;
+        int tombstoneIndex = 0;
+        for (int taken = 0; taken < limit; taken++) {
+            User user = userIndex < users.size() ? users.get(userIndex) : null;
+            if (user != null && user.getChangeSeq() > lastSeq) {
+                user = null;
+            }
+            long[] tombstone = tombstoneIndex < tombstones.size() ? tombstones.get(tombstoneIndex) : null;
+            if (user == null && tombstone == null) {
+                // Neither scan was cut short, so nothing else is left up to lastSeq
+                return lastSeq;
+            }
+            if (tombstone == null || (user != null && user.getChangeSeq() < tombstone[1])) {
+                updated.add(user);
+                next = user.getChangeSeq();
+                userIndex++;
+            } else {
+                if (tombstone[2] == 0) {
+                    deleted.add(tombstone[0]);
+                }
+                next = tombstone[1];
+                tombstoneIndex++;
+            }
+        }
+        return next;
+    }
+
+    private void wake() {
+        if (wakeScheduled.compareAndSet(false, true)) {
+            // A change becomes readable once it has settled; the margin covers the millisecond timestamps
+            notifier.schedule(this::notifyWaiters, properties.getSettleTime().plus(WAKE_MARGIN).toNanos(),
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void notifyWaiters() {
+        wakeScheduled.set(false);
+        Map<String, UserChanges> pages = new HashMap<>();
+        for (Waiter waiter : waiters) {
+            if (waiter.result.isSetOrExpired()) {
+                waiters.remove(waiter);
+                continue;
+            }
+            try {
+                UserChanges changes = pages.computeIfAbsent(waiter.since + "|" + waiter.limit,
+                        key -> changes(waiter.since, waiter.limit));
+                if (!isEmpty(changes)) {
+                    waiter.result.setResult(changes);
+                    waiters.remove(waiter);
+                }
+            } catch (RuntimeException ex) {
+                waiter.result.setErrorResult(ex);
+                waiters.remove(waiter);
+            }
+        }
+    }
+
+    private static boolean isEmpty(UserChanges changes) {
+        return changes.getUpdated().isEmpty() && changes.getDeleted().isEmpty() && !changes.isResyncRequired();
+    }
+
+    private static final class Waiter {
+        private final String since;
+        private final Integer limit;
+        private final DeferredResult<UserChanges> result;
+
+        private Waiter(String since, Integer limit, DeferredResult<UserChanges> result) {
+            this.since = since;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+
+    private record Horizon(long settledSeq, long prunedSeq) {
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.bulkhead.BulkheadProperties;
+import org.example.bulkhead.BulkheadRoutingDataSource;
+import org.example.bulkhead.TrafficClass;
+import org.example.jdbc.QueryInspectionProperties;
+import org.example.jdbc.QueryStatsEndpoint;
+import org.example.jdbc.QueryStatsFilter;
+import org.example.jdbc.StatementInspectingDataSource;
+import org.example.sharding.ShardRoutingDataSource;
+import org.example.sharding.ShardingProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties({BulkheadProperties.class, QueryInspectionProperties.class, ShardingProperties.class})
+public class DataSourceConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                         ShardingProperties shardingProperties,
+                                                         BulkheadProperties bulkheadProperties,
+                                                         MeterRegistry meterRegistry) {
+        List<DataSourceProperties> shardProperties = shardingProperties.dataSources(dataSourceProperties);
+        List<BulkheadRoutingDataSource> shards = new ArrayList<>(shardProperties.size());
+        for (int shard = 0; shard < shardProperties.size(); shard++) {
+            String poolPrefix = shardProperties.size() == 1 ? "user" : "user-s" + shard;
+            shards.add(bulkheadDataSource(shardProperties.get(shard), poolPrefix, bulkheadProperties, meterRegistry));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource,
+                                 QueryInspectionProperties queryInspectionProperties) {
+        // With several shards the physical connection is fetched on the first statement, so the shard can
+        // be chosen inside a transaction that has already begun
+        DataSource dataSource = shardRoutingDataSource.getShardCount() > 1
+                ? new LazyConnectionDataSourceProxy(shardRoutingDataSource)
+                : shardRoutingDataSource;
+        if (!queryInspectionProperties.isEnabled()) {
+            return dataSource;
+        }
+        return new StatementInspectingDataSource(dataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.query-inspection", name = "enabled", matchIfMissing = true)
+    public QueryStatsFilter queryStatsFilter(QueryInspectionProperties queryInspectionProperties) {
+        return new QueryStatsFilter(queryInspectionProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.query-inspection", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<QueryStatsFilter> queryStatsFilterRegistration(QueryStatsFilter queryStatsFilter) {
+        FilterRegistrationBean<QueryStatsFilter> registration = new FilterRegistrationBean<>(queryStatsFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.query-inspection", name = "enabled", matchIfMissing = true)
+    public QueryStatsEndpoint queryStatsEndpoint(QueryStatsFilter queryStatsFilter) {
+        return new QueryStatsEndpoint(queryStatsFilter);
+    }
+
+    private static BulkheadRoutingDataSource bulkheadDataSource(DataSourceProperties dataSourceProperties,
+                                                                String poolPrefix,
+                                                                BulkheadProperties bulkheadProperties,
+                                                                MeterRegistry meterRegistry) {
+        Map<TrafficClass, HikariDataSource> pools = new EnumMap<>(TrafficClass.class);
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            BulkheadProperties.Pool pool = bulkheadProperties.forClass(trafficClass);
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName(poolPrefix + "-" + trafficClass.name().toLowerCase(Locale.ROOT));
+            dataSource.setMaximumPoolSize(pool.getMaxPoolSize());
+            dataSource.setMinimumIdle(pool.getMinIdle());
+            dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.put(trafficClass, dataSource);
+        }
+        BulkheadRoutingDataSource bulkheadDataSource = new BulkheadRoutingDataSource(pools);
+        bulkheadDataSource.afterPropertiesSet();
+        return bulkheadDataSource;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.config;
+
+import org.example.jfr.JfrPhaseAspect;
+import org.example.jfr.JfrRequestFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.jfr", name = "enabled", matchIfMissing = true)
+public class JfrConfig {
+
+    @Bean
+    public JfrPhaseAspect jfrPhaseAspect() {
+        return new JfrPhaseAspect();
+    }
+
+    @Bean
+    public FilterRegistrationBean<JfrRequestFilter> jfrRequestFilterRegistration() {
+        FilterRegistrationBean<JfrRequestFilter> registration = new FilterRegistrationBean<>(new JfrRequestFilter());
+        // Outside the concurrency limiter so queueing and shedding show up in the request time
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.lastseen.LastSeenFilter;
+import org.example.lastseen.LastSeenProperties;
+import org.example.lastseen.LastSeenTracker;
+import org.example.sharding.ShardRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties(LastSeenProperties.class)
+@ConditionalOnProperty(prefix = "app.last-seen", name = "enabled", matchIfMissing = true)
+public class LastSeenConfig {
+
+    @Bean
+    public LastSeenTracker lastSeenTracker(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           ShardRouter shardRouter, LastSeenProperties properties,
+                                           MeterRegistry meterRegistry) {
+        return new LastSeenTracker(jdbcTemplate, transactionManager, shardRouter, properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<LastSeenFilter> lastSeenFilterRegistration(LastSeenTracker lastSeenTracker) {
+        FilterRegistrationBean<LastSeenFilter> registration =
+                new FilterRegistrationBean<>(new LastSeenFilter(lastSeenTracker));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -1,39 +1,57 @@
 package org.example.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.example.entity.UserRole;
+import org.example.limiter.AdaptiveConcurrencyFilter;
+import org.example.security.BCryptCostCalibrator;
+import org.example.security.BoundedPasswordEncoder;
+import org.example.security.PasswordHashingProperties;
+import org.example.security.PolicyBCryptPasswordEncoder;
+import org.example.security.RoleRequirement;
+import org.example.security.RouteAuthorizationManager;
 import org.example.service.UserServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
+@EnableConfigurationProperties(PasswordHashingProperties.class)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
+    private static final String BCRYPT = "bcrypt";
+
     @Autowired
     private UserServiceImpl userDetailsService;
+    @Autowired
+    private PasswordHashingProperties passwordHashingProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http
                 .csrf().disable()
-                .authorizeRequests()
-                .antMatchers("/api/user/**").hasAnyRole("ADMIN", "USER")
-                .antMatchers("/api/user/**").permitAll()
-                .antMatchers("/", "/home").permitAll() // Specify public access URLs
-                .anyRequest().authenticated()
+                .authorizeHttpRequests()
+                .anyRequest().access(routeAuthorization())
                 .and()
                 .formLogin()
 //                .loginPage("/login")
+                .failureHandler(loginFailureHandler())
                 .permitAll()
 //                .defaultSuccessUrl("/api/user/all") // Change to your webservice entrypoint
                 .and()
@@ -41,13 +59,56 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .permitAll();
     }
 
+    // Compiled once instead of matching ant patterns and evaluating SpEL on every request
+    private static RouteAuthorizationManager routeAuthorization() {
+        return RouteAuthorizationManager.builder()
+                .route(RoleRequirement.anyOf(UserRole.ROLE_ADMIN, UserRole.ROLE_USER), "/api/user/**")
+                .route(RoleRequirement.PERMIT_ALL, "/", "/home") // Specify public access URLs
+                .route(RoleRequirement.AUTHENTICATED, "/actuator/health/**")
+                .route(RoleRequirement.anyOf(UserRole.ROLE_ADMIN), "/actuator/**") // Metrics and query stats
+                .otherwise(RoleRequirement.AUTHENTICATED);
+    }
+
+    private static AuthenticationFailureHandler loginFailureHandler() {
+        SimpleUrlAuthenticationFailureHandler delegate = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            // The failure is turned into a redirect here, so tell the concurrency limiter it was an overload
+            if (AdaptiveConcurrencyFilter.isSaturation(exception)) {
+                request.setAttribute(AdaptiveConcurrencyFilter.SATURATED_ATTRIBUTE, Boolean.TRUE);
+            }
+            delegate.onAuthenticationFailure(request, response, exception);
+        };
+    }
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        // UserServiceImpl is also the UserDetailsPasswordService, so hashes that fall out of policy are
+        // re-encoded on the next successful login
         auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        Integer configuredCost = passwordHashingProperties.getBcryptCost();
+        int cost = configuredCost != null
+                ? configuredCost
+                : BCryptCostCalibrator.calibrate(passwordHashingProperties.getTargetVerifyTime(),
+                passwordHashingProperties.getMinCost(), passwordHashingProperties.getMaxCost(),
+                passwordHashingProperties.getCalibrationSamples());
+        PolicyBCryptPasswordEncoder bcrypt = new PolicyBCryptPasswordEncoder(cost);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder());
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, encoders);
+        // Seeded hashes carry no {id} prefix
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(delegating,
+                passwordHashingProperties.getPoolSize(), passwordHashingProperties.getQueueCapacity(),
+                passwordHashingProperties.getWaitTimeout());
+        new ExecutorServiceMetrics(passwordEncoder.getExecutor(), "password.hashing", Tags.empty())
+                .bindTo(meterRegistry);
+        return passwordEncoder;
     }
 }
@@ -0,0 +1,109 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.sharding.HashShardRouter;
+import org.example.sharding.ShardAwareIdentityGenerator;
+import org.example.sharding.ShardDirectory;
+import org.example.sharding.ShardEndpoint;
+import org.example.sharding.ShardRebalancer;
+import org.example.sharding.ShardRouter;
+import org.example.sharding.ShardRoutingDataSource;
+import org.example.sharding.ShardingProperties;
+import org.example.sharding.SingleShardRouter;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public ShardRouter singleShardRouter() {
+        return new SingleShardRouter();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+    static class Sharded {
+        private static final String DEFAULT_USERS_VERSION = "1.0.3";
+
+        @Bean
+        public HibernatePropertiesCustomizer assignedUserIds() {
+            return hibernateProperties -> hibernateProperties.put(ShardAwareIdentityGenerator.ASSIGNED_IDS, true);
+        }
+
+        @Bean(destroyMethod = "close")
+        public HikariDataSource shardDirectoryDataSource(DataSourceProperties dataSourceProperties,
+                                                         ShardingProperties shardingProperties,
+                                                         MeterRegistry meterRegistry) {
+            HikariDataSource dataSource = shardingProperties.dataSources(dataSourceProperties).get(0)
+                    .initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName("user-directory");
+            dataSource.setMaximumPoolSize(shardingProperties.getDirectoryPoolSize());
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            return dataSource;
+        }
+
+        @Bean
+        public ShardDirectory shardDirectory(HikariDataSource shardDirectoryDataSource) {
+            return new ShardDirectory(shardDirectoryDataSource);
+        }
+
+        @Bean
+        public HashShardRouter hashShardRouter(ShardDirectory shardDirectory, ShardingProperties shardingProperties,
+                                               ShardRoutingDataSource shardRoutingDataSource,
+                                               PlatformTransactionManager transactionManager) {
+            return new HashShardRouter(shardDirectory, shardingProperties, shardRoutingDataSource.getShardCount(),
+                    transactionManager);
+        }
+
+        @Bean
+        public ShardRebalancer shardRebalancer(ShardRoutingDataSource shardRoutingDataSource,
+                                               ShardDirectory shardDirectory, HashShardRouter hashShardRouter,
+                                               ShardingProperties shardingProperties,
+                                               ApplicationEventPublisher eventPublisher) {
+            return new ShardRebalancer(shardRoutingDataSource, shardDirectory, hashShardRouter, shardingProperties,
+                    eventPublisher);
+        }
+
+        @Bean
+        public ShardEndpoint shardEndpoint(ShardRebalancer shardRebalancer) {
+            return new ShardEndpoint(shardRebalancer);
+        }
+
+        @Bean
+        public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+            return flyway -> {
+                for (int shard = 0; shard < shardRoutingDataSource.getShardCount(); shard++) {
+                    DataSource dataSource = shardRoutingDataSource.getShard(shard);
+                    MigrateResult result = Flyway.configure()
+                            .configuration(flyway.getConfiguration())
+                            .dataSource(dataSource)
+                            .load()
+                            .migrate();
+                    boolean seeded = result.migrations.stream()
+                            .anyMatch(migration -> DEFAULT_USERS_VERSION.equals(migration.version));
+                    if (shard > 0 && seeded) {
+                        // Default users belong to the index shard; a fresh data shard starts empty
+                        new JdbcTemplate(dataSource).update("DELETE FROM user");
+                    }
+                }
+            };
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.batch.UserBatchLookup;
+import org.example.cache.UserLookupKey;
+import org.example.cache.UserResponseCache;
+import org.example.cache.UserResponseKey;
+import org.example.changes.UserChangeLog;
 import org.example.entity.User;
+import org.example.entity.UserBatchRequest;
+import org.example.entity.UserBatchResult;
+import org.example.entity.UserChanges;
 import org.example.entity.UserDto;
+import org.example.entity.UserRole;
+import org.example.entity.UserStatsDto;
+import org.example.security.RequiresRole;
 import org.example.service.UserServiceImpl;
+import org.example.stats.UserStats;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,41 +27,87 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
+    private static final String USER_PROJECTION = "user";
+
     private final UserServiceImpl userService;
+    private final UserBatchLookup userBatchLookup;
+    private final UserStats userStats;
+    private final UserChangeLog userChangeLog;
+    private final UserResponseCache userResponseCache;
 
-    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequiresRole(UserRole.ROLE_ADMIN)
     @GetMapping("/all")
     public ResponseEntity<List<User>> getAllUsers() {
         return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
     }
 
-    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RequiresRole(UserRole.ROLE_ADMIN)
     @DeleteMapping("/id/{userId}")
     public void deleteById(@PathVariable Long userId) {
         userService.deleteById(userId);
     }
 
-    @GetMapping("/id/{userId}")
-    public ResponseEntity<User> getUserById(@PathVariable Long userId) {
-        return new ResponseEntity<>(userService.getUser(userId), HttpStatus.OK);
+    @GetMapping(value = "/id/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getUserById(@PathVariable Long userId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeUser(UserLookupKey.id(userId), () -> userService.getUser(userId), request, response);
+    }
+
+    @GetMapping(value = "/username/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getUserByUsername(@PathVariable String username, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        writeUser(UserLookupKey.username(username), () -> userService.getUserByUsername(username), request, response);
+    }
+
+    @GetMapping(value = "/email/{email}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getUserByEmail(@PathVariable String email, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        writeUser(UserLookupKey.email(email), () -> userService.getUserByEmail(email), request, response);
+    }
+
+    @RequiresRole(UserRole.ROLE_ADMIN)
+    @GetMapping("/changes")
+    public UserChanges getChanges(@RequestParam(required = false) String since,
+                                  @RequestParam(required = false) Integer limit) {
+        return userChangeLog.changes(since, limit);
     }
 
-    @GetMapping("/username/{username}")
-    public User getUserByUsername(@PathVariable String username) {
-        return userService.getUserByUsername(username);
+    @RequiresRole(UserRole.ROLE_ADMIN)
+    @GetMapping("/changes/poll")
+    public DeferredResult<UserChanges> pollChanges(@RequestParam(required = false) String since,
+                                                   @RequestParam(required = false) Integer limit) {
+        return userChangeLog.poll(since, limit);
     }
 
-    @GetMapping("/email/{email}")
-    public User getUserByEmail(@PathVariable String email) {
-        return userService.getUserByEmail(email);
+    @GetMapping("/stats")
+    public UserStatsDto getStats() {
+        return userStats.snapshot();
+    }
+
+    @GetMapping("/batch")
+    public UserBatchResult getUsersBatch(@RequestParam(required = false) List<Long> ids,
+                                         @RequestParam(required = false) List<String> usernames,
+                                         @RequestParam(required = false) List<String> emails) {
+        return userBatchLookup.lookup(new UserBatchRequest(ids, usernames, emails));
+    }
+
+    @PostMapping("/batch")
+    public UserBatchResult getUsersBatch(@RequestBody UserBatchRequest request) {
+        return userBatchLookup.lookup(request);
     }
 
     @PostMapping
@@ -64,4 +123,32 @@ public class UserController {
     public ResponseEntity<User> updateUserByUserName(@PathVariable String username, @RequestBody UserDto userDto) {
         return new ResponseEntity<>(userService.updateUserByUsername(username, userDto), HttpStatus.OK);
     }
+
+    private void writeUser(UserLookupKey lookup, Supplier<User> loader, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = userResponseCache.body(
+                new UserResponseKey(lookup, USER_PROJECTION, MediaType.APPLICATION_JSON, gzip), loader);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
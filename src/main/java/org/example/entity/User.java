@@ -1,13 +1,14 @@
 package org.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.Column;
@@ -15,11 +16,10 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import java.time.Instant;
 import java.util.Collection;
-import java.util.Collections;
 
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,7 +31,8 @@ import java.util.Collections;
 @Table(name = "user")
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "user_id")
+    @GenericGenerator(name = "user_id", strategy = "org.example.sharding.ShardAwareIdentityGenerator")
     private Long id;
     @Column
     private String username;
@@ -42,10 +43,24 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     @Column(name= "user_role", nullable = false)
     private UserRole userRole;
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private Instant updatedAt;
+    @JsonIgnore
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    public User(Long id, String username, String email, String password, UserRole userRole) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.password = password;
+        this.userRole = userRole;
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(userRole.getAuthority()));
+        return userRole.getAuthorities();
     }
 
     @Override
@@ -0,0 +1,31 @@
+package org.example.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch lookup response. Only the key types present in the request are returned; every requested key is
+ * either in {@code found} or in {@code notFound}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchResult {
+    private Entries<Long> ids;
+    private Entries<String> usernames;
+    private Entries<String> emails;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entries<K> {
+        private Map<K, User> found;
+        private List<K> notFound;
+    }
+}
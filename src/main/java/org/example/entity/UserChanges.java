@@ -0,0 +1,25 @@
+package org.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the user change feed. {@code cursor} is passed back as {@code since} to read the next page;
+ * {@code resyncRequired} means tombstones older than {@code since} were pruned and the mirror has to
+ * restart from an empty cursor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChanges {
+    private List<User> updated;
+    private List<Long> deleted;
+    private String cursor;
+    private boolean hasMore;
+    private boolean resyncRequired;
+}
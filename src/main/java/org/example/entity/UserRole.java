@@ -1,13 +1,23 @@
 package org.example.entity;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Set;
 
 public enum UserRole implements GrantedAuthority {
     ROLE_ADMIN,
     ROLE_USER;
 
+    // Shared by every user with the role instead of allocated on each getAuthorities() call
+    private final Set<GrantedAuthority> authorities = Set.of(new SimpleGrantedAuthority(name()));
+
     @Override
     public String getAuthority() {
         return name();
     }
+
+    public Set<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
 }
@@ -0,0 +1,23 @@
+package org.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserStatsDto {
+    private long total;
+    private Map<UserRole, Long> byRole;
+    private long created;
+    private long deleted;
+    private long createdLastMinute;
+    private long deletedLastMinute;
+    private Instant reconciledAt;
+}
@@ -0,0 +1,17 @@
+package org.example.exception;
+
+import lombok.Getter;
+import org.example.bulkhead.TrafficClass;
+
+import java.util.Locale;
+
+@Getter
+public class BulkheadFullException extends RuntimeException {
+    private final TrafficClass trafficClass;
+
+    public BulkheadFullException(TrafficClass trafficClass) {
+        super(String.format("Too many concurrent %s calls", trafficClass.name().toLowerCase(Locale.ROOT)),
+                null, false, false);
+        this.trafficClass = trafficClass;
+    }
+}
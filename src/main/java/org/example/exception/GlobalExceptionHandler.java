@@ -1,23 +1,44 @@
 package org.example.exception;
 
+import org.example.jfr.ExceptionOutcomeEvent;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(NotFoundEntityException.class)
-    @ResponseStatus(HttpStatus.NOT_FOUND)
-    public ResponseEntity<String> handlerNoFoundEntityException(NotFoundEntityException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    public void handlerNoFoundEntityException(NotFoundEntityException ex, HttpServletResponse response)
+            throws IOException {
+        prepare(ex, response, HttpStatus.NOT_FOUND);
+        if (ex.isFormatted()) {
+            ProblemDetails.write(response.getOutputStream(), HttpStatus.NOT_FOUND, ex.getTemplate(), ex.getArgument());
+        } else {
+            ProblemDetails.write(response.getOutputStream(), HttpStatus.NOT_FOUND, ex.getTemplate());
+        }
     }
 
     @ExceptionHandler(NotUniqueEntityException.class)
-    @ResponseStatus(HttpStatus.CONFLICT)
-    public ResponseEntity<String> handlerNotUniqueEntityException(NotUniqueEntityException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    public void handlerNotUniqueEntityException(NotUniqueEntityException ex, HttpServletResponse response)
+            throws IOException {
+        prepare(ex, response, HttpStatus.CONFLICT);
+        ProblemDetails.write(response.getOutputStream(), HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public void handlerBulkheadFullException(BulkheadFullException ex, HttpServletResponse response)
+            throws IOException {
+        prepare(ex, response, HttpStatus.SERVICE_UNAVAILABLE);
+        ProblemDetails.write(response.getOutputStream(), HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    private static void prepare(Exception ex, HttpServletResponse response, HttpStatus status) {
+        ExceptionOutcomeEvent.emit(ex, status.value());
+        response.setStatus(status.value());
+        response.setContentType(ProblemDetails.CONTENT_TYPE);
     }
 }
@@ -1,11 +1,54 @@
 package org.example.exception;
 
+/**
+ * Thrown on every lookup miss, so it skips the stack trace and only formats its message when someone
+ * asks for it. {@link GlobalExceptionHandler} renders {@link #getTemplate()} and {@link #getArgument()}
+ * directly without ever building the message.
+ */
 public class NotFoundEntityException extends RuntimeException {
+    private final String template;
+    private final Object argument;
+    private final boolean formatted;
+    private String message;
+
     public NotFoundEntityException(String message) {
-        super(message);
+        super(null, null, false, false);
+        this.template = message;
+        this.argument = null;
+        this.formatted = false;
+    }
+
+    public NotFoundEntityException(String template, Object argument) {
+        super(null, null, false, false);
+        this.template = template;
+        this.argument = argument;
+        this.formatted = true;
     }
 
     public NotFoundEntityException(String message, Throwable cause) {
-        super(message, cause);
+        super(null, cause, false, false);
+        this.template = message;
+        this.argument = null;
+        this.formatted = false;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Object getArgument() {
+        return argument;
+    }
+
+    public boolean isFormatted() {
+        return formatted;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = formatted ? String.format(template, argument) : template;
+        }
+        return message;
     }
 }
@@ -3,10 +3,10 @@ package org.example.exception;
 public class NotUniqueEntityException extends RuntimeException{
 
     public NotUniqueEntityException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public NotUniqueEntityException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -0,0 +1,103 @@
+package org.example.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes RFC 7807 problem documents. Everything except the formatted argument of the detail is
+ * encoded once per status and message template and then copied straight to the output.
+ */
+public final class ProblemDetails {
+    public static final String CONTENT_TYPE = "application/problem+json";
+
+    private static final int MAX_CACHED_TEMPLATES = 256;
+    private static final byte[] DETAIL_END = "\"}".getBytes(StandardCharsets.UTF_8);
+    private static final Map<HttpStatus, byte[]> HEADS = new ConcurrentHashMap<>();
+    private static final Map<String, byte[][]> TEMPLATES = new ConcurrentHashMap<>();
+
+    private ProblemDetails() {
+    }
+
+    public static void write(OutputStream out, HttpStatus status, String detail) throws IOException {
+        out.write(head(status));
+        out.write(segments(detail, false)[0]);
+        out.write(DETAIL_END);
+    }
+
+    public static void write(OutputStream out, HttpStatus status, String template, Object argument)
+            throws IOException {
+        byte[][] segments = segments(template, true);
+        out.write(head(status));
+        out.write(segments[0]);
+        if (segments.length > 1) {
+            out.write(escape(String.valueOf(argument)).getBytes(StandardCharsets.UTF_8));
+            out.write(segments[1]);
+        }
+        out.write(DETAIL_END);
+    }
+
+    private static byte[] head(HttpStatus status) {
+        return HEADS.computeIfAbsent(status, key -> ("{\"type\":\"about:blank\",\"title\":\""
+                + escape(key.getReasonPhrase()) + "\",\"status\":" + key.value() + ",\"detail\":\"")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[][] segments(String template, boolean formatted) {
+        String cacheKey = formatted ? template : "\0" + template;
+        byte[][] segments = TEMPLATES.get(cacheKey);
+        if (segments == null) {
+            segments = split(template, formatted);
+            if (TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+                TEMPLATES.put(cacheKey, segments);
+            }
+        }
+        return segments;
+    }
+
+    private static byte[][] split(String template, boolean formatted) {
+        int placeholder = formatted ? placeholderIndex(template) : -1;
+        if (placeholder < 0) {
+            return new byte[][]{escape(template).getBytes(StandardCharsets.UTF_8)};
+        }
+        return new byte[][]{
+                escape(template.substring(0, placeholder)).getBytes(StandardCharsets.UTF_8),
+                escape(template.substring(placeholder + 2)).getBytes(StandardCharsets.UTF_8)
+        };
+    }
+
+    private static int placeholderIndex(String template) {
+        int string = template.indexOf("%s");
+        int number = template.indexOf("%d");
+        if (string < 0) {
+            return number;
+        }
+        return number < 0 ? string : Math.min(string, number);
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = null;
+            if (c == '"' || c == '\\') {
+                replacement = "\\" + c;
+            } else if (c < 0x20) {
+                replacement = String.format("\\u%04x", (int) c);
+            }
+            if (replacement != null) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                escaped.append(replacement);
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EndpointQueryStats {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+    private final LongAdder overBudget = new LongAdder();
+    private final LongAdder repeatedStatements = new LongAdder();
+
+    void record(QueryStats stats, boolean exceededBudget, boolean repeated) {
+        requests.increment();
+        statements.add(stats.getStatements());
+        rows.add(stats.getRows());
+        dbNanos.add(stats.getDbNanos());
+        maxStatements.accumulate(stats.getStatements());
+        if (exceededBudget) {
+            overBudget.increment();
+        }
+        if (repeated) {
+            repeatedStatements.increment();
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public double getDbTimeMillis() {
+        return dbNanos.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getAvgStatementsPerRequest() {
+        long count = requests.sum();
+        return count == 0 ? 0 : statements.sum() / (double) count;
+    }
+
+    public long getMaxStatements() {
+        return maxStatements.get();
+    }
+
+    public long getOverBudget() {
+        return overBudget.sum();
+    }
+
+    public long getRepeatedStatements() {
+        return repeatedStatements.sum();
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.jdbc;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.query-inspection")
+public class QueryInspectionProperties {
+    private boolean enabled = true;
+    private int statementBudget = 10;
+    private int repeatedStatementThreshold = 3;
+}
@@ -0,0 +1,50 @@
+package org.example.jdbc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class QueryStats {
+    public static final String REQUEST_ATTRIBUTE = QueryStats.class.getName();
+
+    private final Map<String, Integer> statementsByShape = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long dbNanos;
+
+    void recordStatement(String shape, long elapsedNanos) {
+        statements++;
+        dbNanos += elapsedNanos;
+        if (shape != null) {
+            statementsByShape.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    void recordRows(long count) {
+        rows += count;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public Map<String, Integer> getStatementsByShape() {
+        return Collections.unmodifiableMap(statementsByShape);
+    }
+
+    public int getMaxRepeats() {
+        int max = 0;
+        for (int repeats : statementsByShape.values()) {
+            max = Math.max(max, repeats);
+        }
+        return max;
+    }
+}
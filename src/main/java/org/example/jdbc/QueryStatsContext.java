@@ -0,0 +1,22 @@
+package org.example.jdbc;
+
+public final class QueryStatsContext {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryStatsContext() {
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Endpoint(id = "querystats")
+public class QueryStatsEndpoint {
+    private final QueryStatsFilter queryStatsFilter;
+
+    @ReadOperation
+    public Map<String, EndpointQueryStats> queryStats() {
+        return queryStatsFilter.getEndpoints();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@RequiredArgsConstructor
+public class QueryStatsFilter extends OncePerRequestFilter {
+    private final QueryInspectionProperties properties;
+    private final Map<String, EndpointQueryStats> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryStatsContext.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStatsContext.end();
+            request.setAttribute(QueryStats.REQUEST_ATTRIBUTE, stats);
+            if (stats.getStatements() > 0) {
+                record(endpointOf(request), stats);
+            }
+        }
+    }
+
+    public Map<String, EndpointQueryStats> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    private void record(String endpoint, QueryStats stats) {
+        boolean exceededBudget = stats.getStatements() > properties.getStatementBudget();
+        boolean repeated = stats.getMaxRepeats() >= properties.getRepeatedStatementThreshold();
+        if (exceededBudget) {
+            log.warn("{} executed {} statements, budget is {}",
+                    endpoint, stats.getStatements(), properties.getStatementBudget());
+        }
+        if (repeated) {
+            stats.getStatementsByShape().forEach((shape, repeats) -> {
+                if (repeats >= properties.getRepeatedStatementThreshold()) {
+                    log.warn("{} repeated the same statement {} times, possible N+1: {}", endpoint, repeats, shape);
+                }
+            });
+        }
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointQueryStats()).record(stats, exceededBudget, repeated);
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+    }
+}
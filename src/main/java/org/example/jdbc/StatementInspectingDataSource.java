@@ -0,0 +1,140 @@
+package org.example.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps connections handed out while a {@link QueryStats} scope is open on the current thread, so that
+ * every statement, fetched row and the time spent in the driver is attributed to that scope.
+ * Connections obtained outside a scope (startup, schedulers) are returned untouched.
+ */
+public class StatementInspectingDataSource extends DelegatingDataSource {
+
+    public StatementInspectingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return inspect(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return inspect(super.getConnection(username, password));
+    }
+
+    private static Connection inspect(Connection connection) {
+        QueryStats stats = QueryStatsContext.current();
+        if (stats == null) {
+            return connection;
+        }
+        return proxy(Connection.class, new ConnectionHandler(connection, stats));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementInspectingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final QueryStats stats;
+
+        ConnectionHandler(Connection target, QueryStats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementInspectingDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                            new StatementHandler((Statement) result, StatementShapes.of((String) args[0]), stats));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                            new StatementHandler((Statement) result, StatementShapes.of((String) args[0]), stats));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null, stats));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedShape;
+        private final QueryStats stats;
+
+        StatementHandler(Statement target, String preparedShape, QueryStats stats) {
+            this.target = target;
+            this.preparedShape = preparedShape;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = StatementInspectingDataSource.invoke(target, method, args);
+                return "getResultSet".equals(name) ? rows((ResultSet) result) : result;
+            }
+            String shape = args != null && args.length > 0 && args[0] instanceof String
+                    ? StatementShapes.of((String) args[0])
+                    : preparedShape;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = StatementInspectingDataSource.invoke(target, method, args);
+            } finally {
+                stats.recordStatement(shape, System.nanoTime() - start);
+            }
+            if (result instanceof ResultSet) {
+                return rows((ResultSet) result);
+            }
+            if (result instanceof Integer || result instanceof Long) {
+                stats.recordRows(Math.max(0L, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int updated : (int[]) result) {
+                    stats.recordRows(Math.max(0, updated));
+                }
+            }
+            return result;
+        }
+
+        private ResultSet rows(ResultSet resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = StatementInspectingDataSource.invoke(resultSet, method, args);
+                if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                    stats.recordRows(1);
+                }
+                return result;
+            });
+        }
+    }
+}
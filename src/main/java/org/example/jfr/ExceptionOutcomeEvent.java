@@ -0,0 +1,30 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ExceptionOutcomeEvent.NAME)
+@Label("Exception Outcome")
+@Category({"User Service", "HTTP"})
+public class ExceptionOutcomeEvent extends Event {
+    public static final String NAME = "org.example.user.ExceptionOutcome";
+
+    @Label("Request Id")
+    long requestId;
+    @Label("Exception")
+    String exception;
+    @Label("Status")
+    int status;
+
+    public static void emit(Exception ex, int status) {
+        ExceptionOutcomeEvent event = new ExceptionOutcomeEvent();
+        if (event.shouldCommit()) {
+            event.requestId = JfrContext.requestId();
+            event.exception = ex.getClass().getName();
+            event.status = status;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Description("Request served by the user API, from the first filter to the last byte written")
+@Category({"User Service", "HTTP"})
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    public static final String NAME = "org.example.user.HttpRequest";
+
+    @Label("Request Id")
+    long requestId;
+    @Label("Method")
+    String method;
+    @Label("Endpoint")
+    @Description("Matched handler pattern, or 'unmapped'")
+    String endpoint;
+    @Label("Status")
+    int status;
+    @Label("Exception")
+    @Description("Exception that escaped the filter chain, if any")
+    String exception;
+}
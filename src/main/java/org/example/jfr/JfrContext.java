@@ -0,0 +1,31 @@
+package org.example.jfr;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binds the id of the request being recorded to the serving thread, so service, repository and
+ * password events can be attributed to their HTTP request. Only set while {@link HttpRequestEvent}
+ * is enabled; {@link #requestId()} is 0 otherwise.
+ */
+public final class JfrContext {
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private JfrContext() {
+    }
+
+    public static long requestId() {
+        Long requestId = CURRENT.get();
+        return requestId != null ? requestId : 0L;
+    }
+
+    static long begin() {
+        long requestId = NEXT_ID.incrementAndGet();
+        CURRENT.set(requestId);
+        return requestId;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
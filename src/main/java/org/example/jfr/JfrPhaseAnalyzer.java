@@ -0,0 +1,172 @@
+package org.example.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a recording into a per-endpoint breakdown of where request time went. Each phase is reported
+ * as self time, i.e. without the phases nested in it: a repository call inside a service operation
+ * counts as repository, and whatever the request spent outside any service, repository or password
+ * phase (filters, security, serialization) counts as http.
+ * <p>
+ * Run with {@code ./gradlew jfrPhases -Precording=recording.jfr}.
+ */
+public final class JfrPhaseAnalyzer {
+    private static final String[] PHASES = {"http", "service", "repository", "password"};
+    private static final Map<String, Integer> PHASE_BY_EVENT = Map.of(
+            HttpRequestEvent.NAME, 0,
+            ServiceOperationEvent.NAME, 1,
+            RepositoryCallEvent.NAME, 2,
+            PasswordEncodingEvent.NAME, 3);
+
+    private JfrPhaseAnalyzer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrPhaseAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        print(analyze(Path.of(args[0])), System.out);
+    }
+
+    static Map<String, EndpointPhases> analyze(Path recording) throws IOException {
+        Map<Long, RequestEvents> requests = new HashMap<>();
+        Map<Long, Integer> exceptions = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+            String name = event.getEventType().getName();
+            if (!event.hasField("requestId") || event.getLong("requestId") == 0) {
+                continue;
+            }
+            long requestId = event.getLong("requestId");
+            if (ExceptionOutcomeEvent.NAME.equals(name)) {
+                exceptions.merge(requestId, 1, Integer::sum);
+                continue;
+            }
+            Integer phase = PHASE_BY_EVENT.get(name);
+            if (phase == null) {
+                continue;
+            }
+            RequestEvents request = requests.computeIfAbsent(requestId, id -> new RequestEvents());
+            Span span = new Span(phase, nanos(event.getStartTime()), nanos(event.getEndTime()));
+            if (phase == 0) {
+                request.http = span;
+                request.endpoint = event.getString("endpoint");
+                request.failed = event.getInt("status") >= 500 || event.getString("exception") != null;
+            } else {
+                request.phases.add(span);
+            }
+        }
+
+        Map<String, EndpointPhases> endpoints = new TreeMap<>();
+        requests.forEach((requestId, request) -> {
+            // Requests still running when the recording stopped have no HTTP event
+            if (request.http == null) {
+                return;
+            }
+            EndpointPhases endpoint = endpoints.computeIfAbsent(request.endpoint, key -> new EndpointPhases());
+            endpoint.record(request, exceptions.getOrDefault(requestId, 0));
+        });
+        return endpoints;
+    }
+
+    static void print(Map<String, EndpointPhases> endpoints, PrintStream out) {
+        out.printf("%-40s %8s %10s %10s", "endpoint", "requests", "avg ms", "p99 ms");
+        for (String phase : PHASES) {
+            out.printf(" %11s", phase + " ms");
+        }
+        out.printf(" %7s%n", "errors");
+        endpoints.forEach((endpoint, phases) -> {
+            out.printf("%-40s %8d %10.3f %10.3f", endpoint, phases.totals.size(),
+                    phases.average(phases.totalNanos()), phases.p99() / 1e6);
+            for (long selfNanos : phases.selfNanos) {
+                out.printf(" %11.3f", phases.average(selfNanos));
+            }
+            out.printf(" %7d%n", phases.errors);
+        });
+    }
+
+    private static long nanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private record Span(int phase, long start, long end) {
+        long duration() {
+            return end - start;
+        }
+    }
+
+    private static final class RequestEvents {
+        private final List<Span> phases = new ArrayList<>();
+        private Span http;
+        private String endpoint;
+        private boolean failed;
+    }
+
+    static final class EndpointPhases {
+        private final List<Long> totals = new ArrayList<>();
+        private final long[] selfNanos = new long[PHASES.length];
+        private int errors;
+
+        private void record(RequestEvents request, int exceptions) {
+            totals.add(request.http.duration());
+            if (request.failed || exceptions > 0) {
+                errors++;
+            }
+            List<Span> spans = new ArrayList<>(request.phases);
+            spans.add(request.http);
+            // Parents before their children: earlier start first, longer span first on ties
+            spans.sort(Comparator.comparingLong(Span::start).thenComparing(Span::end, Comparator.reverseOrder()));
+            Deque<Span> open = new ArrayDeque<>();
+            for (Span span : spans) {
+                while (!open.isEmpty() && open.peek().end() <= span.start()) {
+                    open.pop();
+                }
+                selfNanos[span.phase()] += span.duration();
+                if (!open.isEmpty()) {
+                    selfNanos[open.peek().phase()] -= span.duration();
+                }
+                open.push(span);
+            }
+        }
+
+        int requests() {
+            return totals.size();
+        }
+
+        long[] selfNanos() {
+            return selfNanos.clone();
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        long totalNanos() {
+            return totals.stream().mapToLong(Long::longValue).sum();
+        }
+
+        private double average(long nanos) {
+            return totals.isEmpty() ? 0 : nanos / 1e6 / totals.size();
+        }
+
+        private long p99() {
+            List<Long> sorted = new ArrayList<>(totals);
+            sorted.sort(null);
+            return sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        }
+    }
+}
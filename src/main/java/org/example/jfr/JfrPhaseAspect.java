@@ -0,0 +1,112 @@
+package org.example.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.example.jdbc.QueryStats;
+import org.example.jdbc.QueryStatsContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Emits {@link ServiceOperationEvent} around {@code UserServiceImpl} operations and
+ * {@link RepositoryCallEvent} around {@code UserRepository} calls. Outermost advice, so the service
+ * phase includes bulkhead waits and the transaction commit. Costs one disabled-check when the events
+ * are off.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JfrPhaseAspect {
+    private static final Map<String, String> LOOKUP_TYPES = Map.ofEntries(
+            Map.entry("getUser", "id"),
+            Map.entry("updateUserById", "id"),
+            Map.entry("deleteById", "id"),
+            Map.entry("getUserByUsername", "username"),
+            Map.entry("updateUserByUsername", "username"),
+            Map.entry("loadUserByUsername", "username"),
+            Map.entry("getUserByEmail", "email"),
+            Map.entry("getUsersByIds", "ids"),
+            Map.entry("getUsersByUsernames", "usernames"),
+            Map.entry("getUsersByEmails", "emails"),
+            Map.entry("getAllUsers", "all"));
+
+    @Around("execution(public * org.example.service.UserServiceImpl.*(..))")
+    public Object service(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        Object result = null;
+        Throwable failure = null;
+        event.begin();
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String operation = joinPoint.getSignature().getName();
+                event.requestId = JfrContext.requestId();
+                event.operation = operation;
+                event.lookupType = LOOKUP_TYPES.get(operation);
+                event.rows = rows(result);
+                event.exception = failure != null ? failure.getClass().getName() : null;
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(public * *(..)) && target(org.example.repository.UserRepository)")
+    public Object repository(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        QueryStats stats = QueryStatsContext.current();
+        int statementsBefore = stats != null ? stats.getStatements() : 0;
+        Object result = null;
+        Throwable failure = null;
+        event.begin();
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.requestId = JfrContext.requestId();
+                event.method = joinPoint.getSignature().getName();
+                event.rows = rows(result);
+                event.statements = stats != null ? stats.getStatements() - statementsBefore : -1;
+                event.exception = failure != null ? failure.getClass().getName() : null;
+                event.commit();
+            }
+        }
+    }
+
+    static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return result instanceof UserDetails ? 1 : -1;
+    }
+}
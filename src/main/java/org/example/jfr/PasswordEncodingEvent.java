@@ -0,0 +1,37 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name(PasswordEncodingEvent.NAME)
+@Label("Password Encoding")
+@Category({"User Service", "Security"})
+@StackTrace(false)
+public class PasswordEncodingEvent extends Event {
+    public static final String NAME = "org.example.user.PasswordEncoding";
+
+    @Label("Request Id")
+    long requestId;
+    @Label("Operation")
+    String operation;
+    @Label("Queue Time")
+    @Description("Time spent waiting for a hashing thread")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+    @Label("Executed")
+    @Description("False when the hashing pool rejected the task")
+    boolean executed;
+
+    public void commit(String operation, long queueTime, boolean executed) {
+        this.requestId = JfrContext.requestId();
+        this.operation = operation;
+        this.queueTime = queueTime;
+        this.executed = executed;
+        commit();
+    }
+}
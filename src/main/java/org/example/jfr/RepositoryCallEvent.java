@@ -0,0 +1,29 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+@Category({"User Service", "Database"})
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+    public static final String NAME = "org.example.user.RepositoryCall";
+
+    @Label("Request Id")
+    long requestId;
+    @Label("Method")
+    String method;
+    @Label("Rows")
+    @Description("Entities returned, -1 when the result is not a row set")
+    long rows;
+    @Label("Statements")
+    @Description("Statements executed during the call, -1 when query inspection is off")
+    int statements;
+    @Label("Exception")
+    String exception;
+}
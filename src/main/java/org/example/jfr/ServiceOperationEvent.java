@@ -0,0 +1,26 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ServiceOperationEvent.NAME)
+@Label("Service Operation")
+@Category({"User Service", "Service"})
+@StackTrace(false)
+public class ServiceOperationEvent extends Event {
+    public static final String NAME = "org.example.user.ServiceOperation";
+
+    @Label("Request Id")
+    long requestId;
+    @Label("Operation")
+    String operation;
+    @Label("Lookup Type")
+    String lookupType;
+    @Label("Rows")
+    long rows;
+    @Label("Exception")
+    String exception;
+}
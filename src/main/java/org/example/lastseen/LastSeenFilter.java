@@ -0,0 +1,32 @@
+package org.example.lastseen;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records an access for the authenticated user of every request. Registered after the Spring Security
+ * filter, which is still on the stack while later filters run, so the security context is populated.
+ */
+@RequiredArgsConstructor
+public class LastSeenFilter extends OncePerRequestFilter {
+    private final LastSeenTracker tracker;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            tracker.record(((User) authentication.getPrincipal()).getId());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
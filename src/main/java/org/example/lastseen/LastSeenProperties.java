@@ -0,0 +1,14 @@
+package org.example.lastseen;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.last-seen")
+public class LastSeenProperties {
+    private boolean enabled = true;
+    private int batchSize = 500;
+    private int maxBufferedUsers = 100_000;
+}
@@ -0,0 +1,165 @@
+package org.example.lastseen;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.bulkhead.Bulkhead;
+import org.example.bulkhead.TrafficClass;
+import org.example.entity.User;
+import org.example.sharding.ShardContext;
+import org.example.sharding.ShardRouter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for {@code user.last_seen_at}. Logins and authenticated requests only touch an in-memory
+ * map that keeps the latest time per user, so any number of hits between two flushes costs one row
+ * update. Flushes run every {@code app.last-seen.flush-interval} as batched UPDATEs per shard and once
+ * more on shutdown.
+ * <p>
+ * Loss window: a crash or kill loses the times recorded since the last successful flush, i.e. up to
+ * one flush interval plus the flush itself. While the buffer is full
+ * ({@code app.last-seen.max-buffered-users}), hits of users not already in it are dropped until the next
+ * flush. A failed flush puts its entries back and is retried on the next run. The column only ever moves
+ * forward, so flushes from several nodes can interleave.
+ * <p>
+ * An update that matches no row either found a newer time, or the user is gone from that shard. A user
+ * whose bucket moved to another shard since is put back for the next flush; the rest are counted as
+ * skipped.
+ */
+@Slf4j
+public class LastSeenTracker implements DisposableBean {
+    private static final String UPDATE_LAST_SEEN = "UPDATE user SET last_seen_at = ? "
+            + "WHERE id = ? AND (last_seen_at IS NULL OR last_seen_at < ?)";
+
+    private final Map<Long, Long> buffer = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final LastSeenProperties properties;
+    private final Timer flushTimer;
+    private final Counter flushed;
+    private final Counter dropped;
+    private final Counter skipped;
+    private final Counter failures;
+
+    public LastSeenTracker(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ShardRouter shardRouter, LastSeenProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.flushTimer = Timer.builder("user.last_seen.flush").register(meterRegistry);
+        this.flushed = Counter.builder("user.last_seen.flushed").register(meterRegistry);
+        this.dropped = Counter.builder("user.last_seen.dropped").register(meterRegistry);
+        this.skipped = Counter.builder("user.last_seen.skipped").register(meterRegistry);
+        this.failures = Counter.builder("user.last_seen.flush.failures").register(meterRegistry);
+        Gauge.builder("user.last_seen.buffer.size", buffer, Map::size).register(meterRegistry);
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        Object principal = event.getAuthentication().getPrincipal();
+        if (principal instanceof User) {
+            record(((User) principal).getId());
+        }
+    }
+
+    public void record(Long userId) {
+        record(userId, System.currentTimeMillis());
+    }
+
+    void record(Long userId, long seenAt) {
+        if (userId == null) {
+            return;
+        }
+        if (buffer.size() >= properties.getMaxBufferedUsers() && !buffer.containsKey(userId)) {
+            dropped.increment();
+            return;
+        }
+        buffer.merge(userId, seenAt, Math::max);
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    @Bulkhead(TrafficClass.ADMIN)
+    @Scheduled(fixedDelayString = "${app.last-seen.flush-interval:10000}")
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        flushTimer.record(this::drain);
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private void drain() {
+        Map<Integer, List<Object[]>> byShard = new HashMap<>();
+        for (Long userId : buffer.keySet()) {
+            // A hit recorded after the removal lands in a new entry and goes out with the next flush
+            Long seenAt = buffer.remove(userId);
+            if (seenAt != null) {
+                Timestamp timestamp = new Timestamp(seenAt);
+                byShard.computeIfAbsent(shardRouter.shardOf(userId), shard -> new ArrayList<>())
+                        .add(new Object[]{timestamp, userId, timestamp});
+            }
+        }
+        byShard.forEach((shard, rows) -> {
+            for (int from = 0; from < rows.size(); from += properties.getBatchSize()) {
+                int to = Math.min(rows.size(), from + properties.getBatchSize());
+                List<Object[]> batch = rows.subList(from, to);
+                try (ShardContext.Scope ignored = shardRouter.onShard(shard)) {
+                    int[] counts = transactionTemplate.execute(
+                            status -> jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN, batch));
+                    settle(shard, batch, counts);
+                } catch (DataAccessException ex) {
+                    log.warn("Flushing {} last-seen times to shard {} failed, retrying next run: {}",
+                            batch.size(), shard, ex.getMessage());
+                    failures.increment();
+                    for (Object[] row : batch) {
+                        buffer.merge((Long) row[1], ((Timestamp) row[0]).getTime(), Math::max);
+                    }
+                }
+            }
+        });
+    }
+
+    private void settle(int shard, List<Object[]> batch, int[] counts) {
+        int applied = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            // Drivers may report SUCCESS_NO_INFO instead of a count, only an explicit 0 means no row matched
+            if (counts == null || counts.length <= i || counts[i] != 0) {
+                applied++;
+                continue;
+            }
+            Object[] row = batch.get(i);
+            Long userId = (Long) row[1];
+            if (shardRouter.shardOf(userId) != shard) {
+                buffer.merge(userId, ((Timestamp) row[0]).getTime(), Math::max);
+            } else {
+                skipped.increment();
+            }
+        }
+        flushed.increment(applied);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.limiter;
+
+import lombok.RequiredArgsConstructor;
+import org.example.exception.BulkheadFullException;
+import org.example.exception.ProblemDetails;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sheds user API requests above the adaptive limit with 503 and {@code Retry-After} before they reach
+ * Tomcat's worker queue or the connection pools. Logins and single user reads go in the high priority
+ * lane; listings, batch lookups and writes in the low one.
+ * <p>
+ * Only overload counts as a drop for the limit: a 503, a full bulkhead or a login the password hashing pool
+ * turned away. Other failures are ordinary latency samples, so a burst of bad requests does not shrink it.
+ */
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+    /**
+     * Set on the request by handlers that swallow a saturation failure, such as the login failure handler.
+     */
+    public static final String SATURATED_ATTRIBUTE = AdaptiveConcurrencyFilter.class.getName() + ".SATURATED";
+
+    private final ConcurrencyLimiter limiter;
+    private final ConcurrencyLimitProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        return !path.equals("/api/user") && !path.startsWith("/api/user/") && !path.equals("/login");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire(laneOf(request))) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(properties.getRetryAfter()));
+            response.setContentType(ProblemDetails.CONTENT_TYPE);
+            ProblemDetails.write(response.getOutputStream(), HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many concurrent requests, retry later");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || request.getAttribute(SATURATED_ATTRIBUTE) != null;
+        } catch (IOException | ServletException | RuntimeException | Error ex) {
+            dropped = isSaturation(ex);
+            throw ex;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Long polls park on purpose, their duration is not a latency signal
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - start, dropped);
+            }
+        }
+    }
+
+    // Retry-After only carries whole seconds; rounding down would tell clients to retry immediately
+    static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+
+    /**
+     * Whether {@code failure} means a downstream resource was full rather than the request being bad.
+     */
+    public static boolean isSaturation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkheadFullException) {
+                return true;
+            }
+            if (cause instanceof AuthenticationServiceException
+                    && (cause.getCause() instanceof RejectedExecutionException
+                    || cause.getCause() instanceof TimeoutException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Lane laneOf(HttpServletRequest request) {
+        String path = pathOf(request);
+        if (path.equals("/login")) {
+            return Lane.HIGH;
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) && (path.startsWith("/api/user/id/")
+                || path.startsWith("/api/user/username/") || path.startsWith("/api/user/email/"))) {
+            return Lane.HIGH;
+        }
+        return Lane.LOW;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
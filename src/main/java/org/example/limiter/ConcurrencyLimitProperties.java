@@ -0,0 +1,28 @@
+package org.example.limiter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+    /**
+     * How much slower than the long-term latency a window may be before the limit shrinks.
+     */
+    private double rttTolerance = 1.5;
+    private double smoothing = 0.2;
+    private int windowSamples = 10;
+    /**
+     * Share of the limit the low priority lane may fill; the rest is kept for high priority requests.
+     */
+    private double lowLaneShare = 0.7;
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,71 @@
+package org.example.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight request limit shared by two lanes. High priority requests may use the whole limit, low
+ * priority ones only {@code low-lane-share} of it, so when the limit shrinks low priority traffic is shed
+ * first.
+ */
+public class ConcurrencyLimiter {
+    private final ConcurrencyLimitProperties properties;
+    private final GradientLimit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<Lane, Counter> rejections = new EnumMap<>(Lane.class);
+
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limit = new GradientLimit(properties);
+        Gauge.builder("concurrency.limit", limit, GradientLimit::getLimit).register(meterRegistry);
+        Gauge.builder("concurrency.inflight", inflight, AtomicInteger::get).register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            rejections.put(lane, Counter.builder("concurrency.rejected")
+                    .tag("lane", lane.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean tryAcquire(Lane lane) {
+        int allowed = allowed(lane);
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                rejections.get(lane).increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit and feeds the latency of the request into the limit.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        limit.onSample(rttNanos, inflight.getAndDecrement(), dropped);
+    }
+
+    /**
+     * Releases a permit without a latency sample, for requests whose duration says nothing about load.
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    private int allowed(Lane lane) {
+        int current = limit.getLimit();
+        return lane == Lane.HIGH ? current : Math.max(1, (int) (current * properties.getLowLaneShare()));
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.limiter;
+
+/**
+ * Gradient style concurrency limit. Each window of samples compares the average latency with a slowly
+ * moving long-term average: when requests get slower than the baseline allows, the limit shrinks in
+ * proportion, otherwise it grows by about {@code sqrt(limit)}. Requests that failed from overload shrink
+ * the limit right away.
+ */
+class GradientLimit {
+    private static final double LONG_RTT_WEIGHT = 1.0 / 600;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final ConcurrencyLimitProperties properties;
+    private volatile double limit;
+    private double longRtt;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInflight;
+    private boolean windowDropped;
+
+    GradientLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflight);
+        windowDropped |= dropped;
+        if (windowSamples < properties.getWindowSamples()) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        limit = next(shortRtt, windowMaxInflight, windowDropped);
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+        windowDropped = false;
+    }
+
+    private double next(double shortRtt, int maxInflight, boolean dropped) {
+        double current = limit;
+        if (dropped) {
+            return clamp(current * DROP_BACKOFF);
+        }
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+        }
+        if (longRtt / shortRtt > 2) {
+            // Latency dropped for good, let the baseline catch up instead of growing without bound
+            longRtt *= 0.95;
+        }
+        if (maxInflight < current / 2) {
+            // Not enough traffic to learn anything about the limit
+            return current;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        return clamp(current * (1 - properties.getSmoothing()) + target * properties.getSmoothing());
+    }
+
+    private double clamp(double value) {
+        return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), value));
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.limiter;
+
+public enum Lane {
+    HIGH,
+    LOW
+}
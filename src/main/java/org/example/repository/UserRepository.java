@@ -1,9 +1,13 @@
 package org.example.repository;
 
 import org.example.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailIgnoreCase(String email);
     boolean existsByUsernameIgnoreCase(String username);
     boolean existsByEmailIgnoreCase(String email);
+
+    // Plain column comparisons so the unique indexes are used; the MySQL collation already ignores case
+    List<User> findAllByUsernameIn(Collection<String> usernames);
+
+    List<User> findAllByEmailIn(Collection<String> emails);
+
+    @Query("select u.userRole as userRole, count(u) as total from User u group by u.userRole")
+    List<UserRoleCount> countByUserRole();
+
+    List<User> findByChangeSeqGreaterThanOrderByChangeSeqAsc(Long changeSeq, Pageable pageable);
 }
@@ -0,0 +1,9 @@
+package org.example.repository;
+
+import org.example.entity.UserRole;
+
+public interface UserRoleCount {
+    UserRole getUserRole();
+
+    long getTotal();
+}
@@ -0,0 +1,52 @@
+package org.example.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+@Slf4j
+public final class BCryptCostCalibrator {
+    private static final String PROBE = "calibration-probe";
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Returns the cost whose verification time on this machine is closest to {@code target}. Each cost step
+     * doubles the work, so probing stops at the first cost that reaches the target. Each node calibrates on its
+     * own hardware, so a cluster should pin {@code app.password.bcrypt-cost} instead.
+     */
+    public static int calibrate(Duration target, int minCost, int maxCost, int samples) {
+        long targetNanos = target.toNanos();
+        int cost = minCost;
+        long previousNanos = 0;
+        for (int candidate = minCost; candidate <= maxCost; candidate++) {
+            long nanos = measure(candidate, samples);
+            log.debug("bcrypt cost {} verifies in {} ms", candidate, nanos / 1_000_000);
+            if (nanos >= targetNanos) {
+                boolean closer = nanos - targetNanos < targetNanos - previousNanos;
+                cost = candidate == minCost || closer ? candidate : candidate - 1;
+                break;
+            }
+            cost = candidate;
+            previousNanos = nanos;
+        }
+        log.info("Calibrated bcrypt cost to {} for target verification time of {} ms", cost, target.toMillis());
+        return cost;
+    }
+
+    private static long measure(int cost, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        String hash = encoder.encode(PROBE);
+        long[] timings = new long[Math.max(1, samples)];
+        for (int i = 0; i < timings.length; i++) {
+            long start = System.nanoTime();
+            encoder.matches(PROBE, hash);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        return timings[timings.length / 2];
+    }
+}
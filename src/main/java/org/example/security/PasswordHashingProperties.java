@@ -0,0 +1,21 @@
+package org.example.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.password")
+public class PasswordHashingProperties {
+    private Duration targetVerifyTime = Duration.ofMillis(250);
+    private int minCost = 10;
+    private int maxCost = 14;
+    private int calibrationSamples = 3;
+    private Integer bcryptCost;
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private Duration waitTimeout = Duration.ofSeconds(2);
+}
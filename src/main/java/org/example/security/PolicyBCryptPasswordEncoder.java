@@ -0,0 +1,35 @@
+package org.example.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that treats every stored hash whose cost differs from the policy cost as out of policy,
+ * so a hash is rehashed on the next login after the cost is raised or lowered. Nodes must agree on the cost;
+ * nodes calibrated to different costs would rehash each other's hashes on every login, so a cluster with
+ * mixed hardware should pin {@code app.password.bcrypt-cost}.
+ */
+public class PolicyBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private final int cost;
+
+    public PolicyBCryptPasswordEncoder(int cost) {
+        super(cost);
+        this.cost = cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != cost;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.security;
+
+import org.example.entity.UserRole;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a controller method to callers holding any of the given roles; the replacement for
+ * {@code @PreAuthorize("hasRole(...)")}, enforced by {@link MethodAuthorizationAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresRole {
+    UserRole[] value();
+}
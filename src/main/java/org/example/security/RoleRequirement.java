@@ -0,0 +1,61 @@
+package org.example.security;
+
+import org.example.entity.UserRole;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Precompiled access rule: the SpEL it replaces is resolved once, so a check is a set lookup per
+ * granted authority. Semantics match {@code permitAll}, {@code authenticated} and
+ * {@code hasAnyRole} of {@code SecurityExpressionRoot}, without a role hierarchy.
+ */
+public final class RoleRequirement {
+    public static final RoleRequirement PERMIT_ALL = new RoleRequirement(null, "permitAll");
+    public static final RoleRequirement AUTHENTICATED = new RoleRequirement(null, "authenticated");
+
+    private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+
+    private final Set<String> authorities;
+    private final String description;
+
+    private RoleRequirement(Set<String> authorities, String description) {
+        this.authorities = authorities;
+        this.description = description;
+    }
+
+    public static RoleRequirement anyOf(UserRole... roles) {
+        Set<String> authorities = Arrays.stream(roles)
+                .map(UserRole::getAuthority)
+                .collect(Collectors.toUnmodifiableSet());
+        return new RoleRequirement(authorities, "hasAnyRole" + authorities);
+    }
+
+    public boolean isSatisfiedBy(Authentication authentication) {
+        if (this == PERMIT_ALL) {
+            return true;
+        }
+        if (authentication == null) {
+            return false;
+        }
+        if (this == AUTHENTICATED) {
+            return !TRUST_RESOLVER.isAnonymous(authentication);
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
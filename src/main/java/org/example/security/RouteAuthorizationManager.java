@@ -0,0 +1,105 @@
+package org.example.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * URL rules compiled at startup into plain string comparisons, evaluated first match wins like the
+ * {@code antMatchers} chain they replace. Only exact paths and {@code /prefix/**} patterns are
+ * supported; anything else is rejected when the rules are built.
+ */
+public class RouteAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final Route[] routes;
+    private final RoleRequirement otherwise;
+
+    private RouteAuthorizationManager(List<Route> routes, RoleRequirement otherwise) {
+        this.routes = routes.toArray(new Route[0]);
+        this.otherwise = otherwise;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        RoleRequirement requirement = requirementFor(context.getRequest());
+        if (requirement == RoleRequirement.PERMIT_ALL) {
+            return GRANTED;
+        }
+        return requirement.isSatisfiedBy(authentication.get()) ? GRANTED : DENIED;
+    }
+
+    public RoleRequirement requirementFor(HttpServletRequest request) {
+        String path = pathOf(request);
+        for (Route route : routes) {
+            if (route.matches(path)) {
+                return route.requirement;
+            }
+        }
+        return otherwise;
+    }
+
+    // Same path AntPathRequestMatcher matches against
+    private static String pathOf(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) {
+            path = path != null && !path.isEmpty() ? path + pathInfo : pathInfo;
+        }
+        return path;
+    }
+
+    private static final class Route {
+        private final String path;
+        private final String prefix;
+        private final RoleRequirement requirement;
+
+        private Route(String pattern, RoleRequirement requirement) {
+            if (pattern.endsWith("/**")) {
+                this.path = pattern.substring(0, pattern.length() - 3);
+                this.prefix = path + "/";
+            } else {
+                this.path = pattern;
+                this.prefix = null;
+            }
+            if (!path.startsWith("/") && !path.isEmpty() || path.contains("*") || path.contains("?")
+                    || path.contains("{")) {
+                throw new IllegalArgumentException("Unsupported route pattern " + pattern);
+            }
+            this.requirement = requirement;
+        }
+
+        private boolean matches(String requestPath) {
+            return requestPath.equals(path) || prefix != null && requestPath.startsWith(prefix);
+        }
+    }
+
+    public static class Builder {
+        private final List<Route> routes = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder route(RoleRequirement requirement, String... patterns) {
+            for (String pattern : patterns) {
+                routes.add(new Route(pattern, requirement));
+            }
+            return this;
+        }
+
+        public RouteAuthorizationManager otherwise(RoleRequirement requirement) {
+            return new RouteAuthorizationManager(routes, requirement);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.service;
+
+import lombok.Value;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+
+@Value
+public class UserChangedEvent {
+    ChangeType type;
+    Long userId;
+    String username;
+    String email;
+    UserRole userRole;
+    String previousUsername;
+    String previousEmail;
+    UserRole previousUserRole;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static UserChangedEvent created(User user) {
+        return new UserChangedEvent(ChangeType.CREATED, user.getId(), user.getUsername(), user.getEmail(),
+                user.getUserRole(), null, null, null);
+    }
+
+    public static UserChangedEvent updated(User current, String previousUsername, String previousEmail,
+                                           UserRole previousUserRole) {
+        return new UserChangedEvent(ChangeType.UPDATED, current.getId(), current.getUsername(), current.getEmail(),
+                current.getUserRole(), previousUsername, previousEmail, previousUserRole);
+    }
+
+    public static UserChangedEvent deleted(User user) {
+        return new UserChangedEvent(ChangeType.DELETED, user.getId(), null, null, null,
+                user.getUsername(), user.getEmail(), user.getUserRole());
+    }
+}
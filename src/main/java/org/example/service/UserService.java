@@ -3,7 +3,9 @@ package org.example.service;
 import org.example.entity.User;
 import org.example.entity.UserDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     public User createUser(UserDto user);
@@ -14,5 +16,8 @@ public interface UserService {
     public User getUserByEmail(String email);
     public User updateUserById(Long id, UserDto userDto);
     public User updateUserByUsername(String username, UserDto userDto);
+    public Map<Long, User> getUsersByIds(Collection<Long> userIds);
+    public Map<String, User> getUsersByUsernames(Collection<String> usernames);
+    public Map<String, User> getUsersByEmails(Collection<String> emails);
 
 }
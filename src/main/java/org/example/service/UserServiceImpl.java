@@ -1,6 +1,11 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.bulkhead.Bulkhead;
+import org.example.bulkhead.TrafficClass;
+import org.example.cache.NegativeLookupCache;
+import org.example.cache.UserLookupCache;
+import org.example.cache.UserLookupKey;
 import org.example.entity.User;
 import org.example.entity.UserDto;
 import org.example.entity.UserRole;
@@ -8,98 +13,257 @@ import org.example.entity.mapper.UserMapper;
 import org.example.exception.NotFoundEntityException;
 import org.example.exception.NotUniqueEntityException;
 import org.example.repository.UserRepository;
+import org.example.sharding.ShardContext;
+import org.example.sharding.ShardRouter;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @Service
-public class UserServiceImpl implements UserService, UserDetailsService {
+public class UserServiceImpl implements UserService, UserDetailsService, UserDetailsPasswordService {
+    private static final int IN_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final NegativeLookupCache negativeLookupCache;
+    private final UserLookupCache userLookupCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User createUser(UserDto user) {
-        if (userRepository.existsByUsernameIgnoreCase(user.getUsername())) {
-            throw new NotUniqueEntityException("Login is already exists");
-        }
-        if (userRepository.existsByEmailIgnoreCase(user.getEmail())) {
-            throw new NotUniqueEntityException("Email is already exists");
-        }
         User createUser = new User();
         userMapper.updateEntity(user, createUser);
         createUser.setUserRole(UserRole.ROLE_USER);
-        return userRepository.save(createUser);
+        try (ShardContext.Scope ignored = shardRouter.forNewUser(createUser)) {
+            if (userRepository.existsByUsernameIgnoreCase(user.getUsername())) {
+                throw new NotUniqueEntityException("Login is already exists");
+            }
+            if (userRepository.existsByEmailIgnoreCase(user.getEmail())) {
+                throw new NotUniqueEntityException("Email is already exists");
+            }
+            User createdUser = userRepository.save(createUser);
+            eventPublisher.publishEvent(UserChangedEvent.created(createdUser));
+            return createdUser;
+        }
     }
 
     @Override
+    @Bulkhead(TrafficClass.ADMIN)
     @Transactional
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return shardRouter.scatter(userRepository::findAll, Comparator.comparing(User::getId));
     }
 
     @Override
+    @Bulkhead(TrafficClass.ADMIN)
     @Transactional
     public void deleteById(Long id){
-        userRepository.deleteById(id);
+        try (ShardContext.Scope ignored = shardRouter.forUserId(id)) {
+            User user = userRepository.findById(id).orElseThrow(
+                    () -> new NotFoundEntityException("Not found user, id: %d", id));
+            userRepository.delete(user);
+            shardRouter.unindex(user);
+            eventPublisher.publishEvent(UserChangedEvent.deleted(user));
+        }
     };
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User getUser(Long userId) {
-        return userRepository.findById(userId).orElseThrow(
-                () -> new NotFoundEntityException(String.format("User %d does not exists. User can't be found", userId)));
+        return lookup(UserLookupKey.id(userId), false, () -> shardRouter.forUserId(userId),
+                () -> userRepository.findById(userId), "User %d does not exists. User can't be found", userId);
     }
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User getUserByUsername(String username) {
-        return userRepository.findByUsernameIgnoreCase(username).orElseThrow(
-                () -> new NotFoundEntityException(String.format("%s does not exists. User can't be found", username)));
+        return lookup(UserLookupKey.username(username), false, () -> shardRouter.forUsername(username),
+                () -> userRepository.findByUsernameIgnoreCase(username),
+                "%s does not exists. User can't be found", username);
     }
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User getUserByEmail(String email) {
-        return userRepository.findByEmailIgnoreCase(email).orElseThrow(
-                () -> new NotFoundEntityException(String.format("%s does not exist. User can't be found", email)));
+        return lookup(UserLookupKey.email(email), false, () -> shardRouter.forEmail(email),
+                () -> userRepository.findByEmailIgnoreCase(email), "%s does not exist. User can't be found", email);
     }
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User updateUserById(Long id, UserDto userDto) {
-        Optional<User> userToUpdateCandidate = userRepository.findById(id);
-        if (userToUpdateCandidate.isPresent()) {
-            User user = userToUpdateCandidate.get();
-            userMapper.updateEntity(userDto, user);
-            return userRepository.save(user);
-        } else {
-            throw new NotFoundEntityException(String.format("Not found user, id: %d", id));
+        try (ShardContext.Scope ignored = shardRouter.forUserId(id)) {
+            Optional<User> userToUpdateCandidate = userRepository.findById(id);
+            if (userToUpdateCandidate.isPresent()) {
+                return update(userToUpdateCandidate.get(), userDto);
+            } else {
+                throw new NotFoundEntityException("Not found user, id: %d", id);
+            }
         }
     }
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
     @Transactional
     public User updateUserByUsername(String username, UserDto userDto) {
-        Optional<User> userToUpdateCandidate = userRepository.findByUsernameIgnoreCase(username);
-        if (userToUpdateCandidate.isPresent()) {
-            User user = userToUpdateCandidate.get();
-            userMapper.updateEntity(userDto, user);
-            return userRepository.save(user);
-        } else {
-            throw new NotFoundEntityException(String.format("User not found, username: %s", username));
+        try (ShardContext.Scope ignored = shardRouter.forUsername(username)) {
+            Optional<User> userToUpdateCandidate = userRepository.findByUsernameIgnoreCase(username);
+            if (userToUpdateCandidate.isPresent()) {
+                return update(userToUpdateCandidate.get(), userDto);
+            } else {
+                throw new NotFoundEntityException("User not found, username: %s", username);
+            }
         }
     }
 
     @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
+    @Transactional
+    public Map<Long, User> getUsersByIds(Collection<Long> userIds) {
+        return lookupAll(userIds, UserLookupKey::id, userRepository::findAllById, User::getId);
+    }
+
+    @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
+    @Transactional
+    public Map<String, User> getUsersByUsernames(Collection<String> usernames) {
+        return lookupAll(lowerCase(usernames), UserLookupKey::username, userRepository::findAllByUsernameIn,
+                user -> user.getUsername().toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    @Bulkhead(TrafficClass.INTERACTIVE)
+    @Transactional
+    public Map<String, User> getUsersByEmails(Collection<String> emails) {
+        return lookupAll(lowerCase(emails), UserLookupKey::email, userRepository::findAllByEmailIn,
+                user -> user.getEmail().toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    @Bulkhead(TrafficClass.AUTH)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return getUserByUsername(username);
+        // Only verified cache entries: a user restored from a snapshot may have been deleted or demoted since
+        return lookup(UserLookupKey.username(username), true, () -> shardRouter.forUsername(username),
+                () -> userRepository.findByUsernameIgnoreCase(username),
+                "%s does not exists. User can't be found", username);
+    }
+
+    @Override
+    @Bulkhead(TrafficClass.AUTH)
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        try (ShardContext.Scope ignored = shardRouter.forUsername(user.getUsername())) {
+            User userToUpdate = userRepository.findByUsernameIgnoreCase(user.getUsername()).orElseThrow(
+                    () -> new NotFoundEntityException("User not found, username: %s", user.getUsername()));
+            userToUpdate.setPassword(newPassword);
+            User updatedUser = userRepository.save(userToUpdate);
+            eventPublisher.publishEvent(UserChangedEvent.updated(updatedUser, updatedUser.getUsername(),
+                    updatedUser.getEmail(), updatedUser.getUserRole()));
+            return updatedUser;
+        }
+    }
+
+    private User update(User user, UserDto userDto) {
+        String previousUsername = user.getUsername();
+        String previousEmail = user.getEmail();
+        UserRole previousUserRole = user.getUserRole();
+        userMapper.updateEntity(userDto, user);
+        shardRouter.reindex(user, previousUsername, previousEmail);
+        User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(
+                UserChangedEvent.updated(updatedUser, previousUsername, previousEmail, previousUserRole));
+        return updatedUser;
+    }
+
+    private User lookup(UserLookupKey key, boolean verifiedOnly, Supplier<ShardContext.Scope> shard,
+                        Supplier<Optional<User>> loader, String template, Object argument) {
+        User cached = verifiedOnly ? userLookupCache.getVerified(key) : userLookupCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (negativeLookupCache.isMissing(key)) {
+            throw new NotFoundEntityException(template, argument);
+        }
+        long cacheVersion = userLookupCache.version();
+        Optional<User> user;
+        try (ShardContext.Scope ignored = shard.get()) {
+            user = loader.get();
+        }
+        if (user.isEmpty()) {
+            negativeLookupCache.recordMiss(key);
+            throw new NotFoundEntityException(template, argument);
+        }
+        userLookupCache.put(user.get(), cacheVersion);
+        return user.get();
+    }
+
+    /**
+     * Resolves keys from the lookup cache first, then loads the rest with one {@code IN} query per chunk, skipping
+     * keys the negative cache knows are missing. Returned keys are normalized the same way as the input; absent keys
+     * were not found.
+     */
+    private <K> Map<K, User> lookupAll(Collection<K> keys, Function<K, UserLookupKey> cacheKey,
+                                       Function<List<K>, List<User>> query, Function<User, K> keyOf) {
+        Map<K, User> found = new HashMap<>();
+        List<K> toLoad = new ArrayList<>(keys.size());
+        for (K key : new LinkedHashSet<>(keys)) {
+            UserLookupKey lookupKey = cacheKey.apply(key);
+            User cached = userLookupCache.get(lookupKey);
+            if (cached != null) {
+                found.put(key, cached);
+            } else if (!negativeLookupCache.isMissing(lookupKey)) {
+                toLoad.add(key);
+            }
+        }
+        if (toLoad.isEmpty()) {
+            return found;
+        }
+        long cacheVersion = userLookupCache.version();
+        for (int from = 0; from < toLoad.size(); from += IN_CHUNK_SIZE) {
+            List<K> chunk = toLoad.subList(from, Math.min(toLoad.size(), from + IN_CHUNK_SIZE));
+            for (User user : shardRouter.scatter(() -> query.apply(chunk), Comparator.comparing(User::getId))) {
+                found.put(keyOf.apply(user), user);
+                userLookupCache.put(user, cacheVersion);
+            }
+        }
+        for (K key : toLoad) {
+            if (!found.containsKey(key)) {
+                negativeLookupCache.recordMiss(cacheKey.apply(key));
+            }
+        }
+        return found;
+    }
+
+    private static List<String> lowerCase(Collection<String> values) {
+        List<String> lowerCased = new ArrayList<>(values.size());
+        for (String value : values) {
+            lowerCased.add(value.toLowerCase(Locale.ROOT));
+        }
+        return lowerCased;
     }
 }
 
@@ -0,0 +1,7 @@
+package org.example.sharding;
+
+/**
+ * Published by {@link ShardRebalancer} after the bucket map changed, so other nodes can be told to reload it.
+ */
+public record BucketsMovedEvent(int movedBuckets) {
+}
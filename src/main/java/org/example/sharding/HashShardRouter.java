@@ -0,0 +1,164 @@
+package org.example.sharding;
+
+import org.example.entity.User;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Routes users to shards by a hash of their id. Ids are hashed into a fixed number of buckets and the
+ * bucket to shard map lives in {@link ShardDirectory}, so {@link ShardRebalancer} can move whole buckets
+ * without changing any id. Username and email lookups are resolved to an id through the global index.
+ * <p>
+ * Bucket moves made by another node arrive through the invalidation log; the periodic reload is a fallback.
+ * <p>
+ * Index writes are not part of the shard transaction: reservations are rolled back by a transaction
+ * synchronization when the shard write fails, and removals happen after the shard delete commits.
+ */
+public class HashShardRouter implements ShardRouter {
+    private final ShardDirectory directory;
+    private final ShardingProperties properties;
+    private final int shardCount;
+    private final TransactionTemplate perShardTransaction;
+    private volatile int[] bucketShards;
+    private long nextId;
+    private long idLimit;
+
+    public HashShardRouter(ShardDirectory directory, ShardingProperties properties, int shardCount,
+                           PlatformTransactionManager transactionManager) {
+        this.directory = directory;
+        this.properties = properties;
+        this.shardCount = shardCount;
+        this.perShardTransaction = new TransactionTemplate(transactionManager);
+        this.perShardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.perShardTransaction.setReadOnly(true);
+    }
+
+    public static int bucketOf(long userId, int buckets) {
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), buckets);
+    }
+
+    @Override
+    public int shardOf(long userId) {
+        return buckets()[bucketOf(userId, properties.getBuckets())];
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.sharding.bucket-refresh-interval:30000}")
+    public void reload() {
+        if (bucketShards != null) {
+            bucketShards = directory.loadBuckets(properties.getBuckets());
+        }
+    }
+
+    @Override
+    public int shardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public ShardContext.Scope onShard(int shard) {
+        return ShardContext.enter(shard);
+    }
+
+    @Override
+    public ShardContext.Scope forUserId(Long userId) {
+        return userId == null ? ShardContext.Scope.NONE : onShard(shardOf(userId));
+    }
+
+    @Override
+    public ShardContext.Scope forUsername(String username) {
+        return forUserId(directory.findUserIdByUsername(username));
+    }
+
+    @Override
+    public ShardContext.Scope forEmail(String email) {
+        return forUserId(directory.findUserIdByEmail(email));
+    }
+
+    @Override
+    public ShardContext.Scope forNewUser(User user) {
+        long userId = allocateId();
+        directory.reserve(userId, user.getUsername(), user.getEmail());
+        afterCompletion(false, () -> directory.unindex(userId));
+        user.setId(userId);
+        return onShard(shardOf(userId));
+    }
+
+    @Override
+    public void reindex(User user, String previousUsername, String previousEmail) {
+        if (user.getUsername().equalsIgnoreCase(previousUsername) && user.getEmail().equalsIgnoreCase(previousEmail)) {
+            return;
+        }
+        directory.reindex(user.getId(), user.getUsername(), user.getEmail());
+        afterCompletion(false, () -> directory.reindex(user.getId(), previousUsername, previousEmail));
+    }
+
+    @Override
+    public void unindex(User user) {
+        Long userId = user.getId();
+        if (!afterCompletion(true, () -> directory.unindex(userId))) {
+            directory.unindex(userId);
+        }
+    }
+
+    @Override
+    public <T> List<T> scatter(Supplier<List<T>> query, Comparator<? super T> order) {
+        List<T> merged = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            try (ShardContext.Scope ignored = onShard(shard)) {
+                List<T> rows = perShardTransaction.execute(status -> query.get());
+                if (rows != null) {
+                    merged.addAll(rows);
+                }
+            }
+        }
+        merged.sort(order);
+        return merged;
+    }
+
+    private synchronized long allocateId() {
+        if (nextId >= idLimit) {
+            nextId = directory.allocateIds(properties.getIdBlockSize());
+            idLimit = nextId + properties.getIdBlockSize();
+        }
+        return nextId++;
+    }
+
+    private int[] buckets() {
+        int[] shards = bucketShards;
+        if (shards == null) {
+            synchronized (this) {
+                shards = bucketShards;
+                if (shards == null) {
+                    shards = directory.loadBuckets(properties.getBuckets());
+                    bucketShards = shards;
+                }
+            }
+        }
+        return shards;
+    }
+
+    private static boolean afterCompletion(boolean onCommit, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (onCommit ? status == STATUS_COMMITTED : status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.sharding;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Identity generation that keeps an id assigned up front when {@link #ASSIGNED_IDS} is set, which
+ * {@code ShardingConfig} does with sharding enabled: the id is allocated from the global allocator before
+ * insert because it decides the shard. Otherwise it is plain IDENTITY and the column stays AUTO_INCREMENT.
+ */
+public class ShardAwareIdentityGenerator extends IdentityGenerator implements Configurable {
+    public static final String ASSIGNED_IDS = "org.example.sharding.assigned-ids";
+
+    private boolean assignedIds;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        assignedIds = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ASSIGNED_IDS, StandardConverters.BOOLEAN, false);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (assignedIds) {
+            Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+            if (id != null) {
+                return id;
+            }
+        }
+        return super.generate(session, object);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.sharding;
+
+import org.example.exception.NotUniqueEntityException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Global sharding metadata kept on the index shard (shard 0): the bucket to shard map, the id
+ * allocator and the username/email lookup index. Statements run on their own connection, outside the
+ * transaction of the shard that holds the user. That connection comes from a dedicated pool: a thread that
+ * already holds a shard 0 connection would otherwise wait on its own pool, and enough of them deadlock it.
+ */
+public class ShardDirectory {
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardDirectory(DataSource indexDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(indexDataSource);
+    }
+
+    public int[] loadBuckets(int buckets) {
+        int[] shards = new int[buckets];
+        List<int[]> rows = jdbcTemplate.query("SELECT bucket, shard FROM user_shard_bucket",
+                (rs, rowNum) -> new int[]{rs.getInt("bucket"), rs.getInt("shard")});
+        if (rows.isEmpty()) {
+            seedBuckets(buckets);
+            return shards;
+        }
+        if (rows.size() != buckets) {
+            throw new IllegalStateException(String.format(
+                    "user_shard_bucket holds %d buckets, app.sharding.buckets is %d", rows.size(), buckets));
+        }
+        for (int[] row : rows) {
+            shards[row[0]] = row[1];
+        }
+        return shards;
+    }
+
+    public void moveBucket(int bucket, int shard) {
+        jdbcTemplate.update("UPDATE user_shard_bucket SET shard = ? WHERE bucket = ?", shard, bucket);
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids and returns the first one.
+     */
+    public long allocateIds(int count) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long first = nextId(connection);
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE user_id_allocator SET next_id = ? WHERE id = 1")) {
+                    update.setLong(1, first + count);
+                    update.executeUpdate();
+                }
+                connection.commit();
+                return first;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    public void reserve(Long userId, String username, String email) {
+        try {
+            jdbcTemplate.update("INSERT INTO user_shard_index (user_id, username, email) VALUES (?, ?, ?)",
+                    userId, normalize(username), normalize(email));
+        } catch (DuplicateKeyException ex) {
+            throw notUnique(username, ex);
+        }
+    }
+
+    public void reindex(Long userId, String username, String email) {
+        try {
+            jdbcTemplate.update("UPDATE user_shard_index SET username = ?, email = ? WHERE user_id = ?",
+                    normalize(username), normalize(email), userId);
+        } catch (DuplicateKeyException ex) {
+            throw notUnique(username, ex);
+        }
+    }
+
+    public void unindex(Long userId) {
+        jdbcTemplate.update("DELETE FROM user_shard_index WHERE user_id = ?", userId);
+    }
+
+    public Long findUserIdByUsername(String username) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_shard_index WHERE username = ?", Long.class, normalize(username)));
+    }
+
+    public Long findUserIdByEmail(String email) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_shard_index WHERE email = ?", Long.class, normalize(email)));
+    }
+
+    private void seedBuckets(int buckets) {
+        // Every bucket starts on the index shard, where pre-sharding data lives; ShardRebalancer spreads them
+        List<Object[]> rows = new ArrayList<>(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            rows.add(new Object[]{bucket, 0});
+        }
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO user_shard_bucket (bucket, shard) VALUES (?, ?)", rows);
+        } catch (DuplicateKeyException ex) {
+            // another node seeded concurrently
+        }
+    }
+
+    private NotUniqueEntityException notUnique(String username, DuplicateKeyException ex) {
+        Integer taken = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_shard_index WHERE username = ?", Integer.class, normalize(username));
+        return new NotUniqueEntityException(
+                taken != null && taken > 0 ? "Login is already exists" : "Email is already exists", ex);
+    }
+
+    private static long nextId(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_id FROM user_id_allocator WHERE id = 1 FOR UPDATE");
+             ResultSet resultSet = select.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("user_id_allocator is not initialised");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static Long first(List<Long> ids) {
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Endpoint(id = "shards")
+public class ShardEndpoint {
+    private final ShardRebalancer rebalancer;
+
+    @ReadOperation
+    public Map<String, Object> distribution() {
+        return rebalancer.distribution();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance() {
+        return rebalancer.rebalance();
+    }
+}
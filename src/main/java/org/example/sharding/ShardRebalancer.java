@@ -0,0 +1,187 @@
+package org.example.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.changes.ChangeSequence;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Moves buckets so that bucket {@code b} ends up on shard {@code b % shardCount}. Rows of a moving bucket
+ * are copied to the target shard, the bucket is flipped in the directory and the source rows are deleted;
+ * rerunning after a failure is safe because rows already present on the target are skipped.
+ * <p>
+ * The change feed numbers changes per shard, so copied rows are re-stamped from the target shard's sequence
+ * and the source records a tombstone marked with the target shard in the same transaction that deletes the
+ * row. The feed skips such tombstones; a mirror sees the move as an update coming from the new shard.
+ * <p>
+ * Writes to a bucket while it moves are not fenced, so run it with writes paused. Other nodes are told
+ * through a {@link BucketsMovedEvent}, which the invalidation log broadcasts; source rows are only purged
+ * after {@code purge-delay}, so nodes still routing with the old map keep finding them meanwhile.
+ */
+@Slf4j
+public class ShardRebalancer {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ShardRoutingDataSource shards;
+    private final ShardDirectory directory;
+    private final HashShardRouter router;
+    private final ShardingProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ShardRebalancer(ShardRoutingDataSource shards, ShardDirectory directory, HashShardRouter router,
+                           ShardingProperties properties, ApplicationEventPublisher eventPublisher) {
+        this.shards = shards;
+        this.directory = directory;
+        this.router = router;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Map<String, Object> distribution() {
+        int[] buckets = directory.loadBuckets(properties.getBuckets());
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int owned = 0;
+            for (int owner : buckets) {
+                if (owner == shard) {
+                    owned++;
+                }
+            }
+            Map<String, Object> shardStats = new LinkedHashMap<>();
+            shardStats.put("buckets", owned);
+            shardStats.put("users", jdbc(shard).queryForObject("SELECT COUNT(*) FROM user", Long.class));
+            distribution.put("shard-" + shard, shardStats);
+        }
+        return distribution;
+    }
+
+    public synchronized Map<String, Object> rebalance() {
+        int bucketCount = properties.getBuckets();
+        int[] current = directory.loadBuckets(bucketCount);
+        Map<Integer, Integer> moves = new HashMap<>();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int target = bucket % shards.getShardCount();
+            if (current[bucket] != target) {
+                moves.put(bucket, target);
+            }
+        }
+        long movedUsers = 0;
+        for (int source = 0; source < shards.getShardCount(); source++) {
+            Map<Integer, List<Long>> idsByTarget = new HashMap<>();
+            for (Long id : jdbc(source).queryForList("SELECT id FROM user", Long.class)) {
+                int bucket = HashShardRouter.bucketOf(id, bucketCount);
+                if (current[bucket] == source && moves.containsKey(bucket)) {
+                    idsByTarget.computeIfAbsent(moves.get(bucket), key -> new ArrayList<>()).add(id);
+                }
+            }
+            for (Map.Entry<Integer, List<Long>> entry : idsByTarget.entrySet()) {
+                movedUsers += copy(source, entry.getKey(), entry.getValue());
+            }
+        }
+        moves.forEach(directory::moveBucket);
+        router.reload();
+        if (!moves.isEmpty()) {
+            eventPublisher.publishEvent(new BucketsMovedEvent(moves.size()));
+            awaitPurgeDelay();
+        }
+        for (int source = 0; source < shards.getShardCount(); source++) {
+            purge(source, current, moves);
+        }
+        log.info("Rebalanced {} buckets, moved {} users", moves.size(), movedUsers);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("movedBuckets", moves.size());
+        result.put("movedUsers", movedUsers);
+        return result;
+    }
+
+    private long copy(int source, int target, List<Long> ids) {
+        long copied = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE));
+            List<Map<String, Object>> rows = jdbc(source).queryForList(
+                    "SELECT * FROM user WHERE id IN (" + placeholders(chunk.size()) + ")", chunk.toArray());
+            copied += transaction(target).execute(status -> insert(target, rows));
+        }
+        return copied;
+    }
+
+    private long insert(int target, List<Map<String, Object>> rows) {
+        List<Map<String, Object>> missing = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Integer exists = jdbc(target).queryForObject(
+                    "SELECT COUNT(*) FROM user WHERE id = ?", Integer.class, row.get("id"));
+            if (exists == null || exists == 0) {
+                missing.add(row);
+            }
+        }
+        for (Map<String, Object> row : missing) {
+            row.put("change_seq", ChangeSequence.next(jdbc(target)));
+            StringJoiner columns = new StringJoiner(", ");
+            row.keySet().forEach(columns::add);
+            jdbc(target).update("INSERT INTO user (" + columns + ") VALUES (" + placeholders(row.size()) + ")",
+                    row.values().toArray());
+        }
+        return missing.size();
+    }
+
+    private void purge(int source, int[] previous, Map<Integer, Integer> moves) {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Long id : jdbc(source).queryForList("SELECT id FROM user", Long.class)) {
+            int bucket = HashShardRouter.bucketOf(id, previous.length);
+            if (previous[bucket] == source && moves.containsKey(bucket)) {
+                ids.add(id);
+                deletes.add(new Object[]{id});
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        transaction(source).executeWithoutResult(status -> {
+            List<Object[]> tombstones = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                tombstones.add(new Object[]{id, ChangeSequence.next(jdbc(source)),
+                        moves.get(HashShardRouter.bucketOf(id, previous.length))});
+            }
+            // A user that moved away before and came back still has its old tombstone here
+            jdbc(source).batchUpdate("DELETE FROM user_tombstone WHERE user_id = ?", deletes);
+            jdbc(source).batchUpdate(
+                    "INSERT INTO user_tombstone (user_id, change_seq, moved_to_shard) VALUES (?, ?, ?)", tombstones);
+            jdbc(source).batchUpdate("DELETE FROM user WHERE id = ?", deletes);
+        });
+    }
+
+    private void awaitPurgeDelay() {
+        try {
+            Thread.sleep(properties.getPurgeDelay().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before purging moved users", ex);
+        }
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shards.getShard(shard));
+    }
+
+    private TransactionTemplate transaction(int shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(shards.getShard(shard)));
+    }
+
+    private static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.sharding;
+
+import org.example.entity.User;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Picks the shard for user operations. Scopes must be opened before the first statement of a
+ * transaction: with more than one shard connections are fetched lazily and stay on the shard that was
+ * current when the first statement ran.
+ */
+public interface ShardRouter {
+    int shardCount();
+
+    int shardOf(long userId);
+
+    ShardContext.Scope onShard(int shard);
+
+    ShardContext.Scope forUserId(Long userId);
+
+    ShardContext.Scope forUsername(String username);
+
+    ShardContext.Scope forEmail(String email);
+
+    /**
+     * Assigns the shard of a user that is about to be inserted and reserves its username and email
+     * in the global index, throwing {@link org.example.exception.NotUniqueEntityException} when taken.
+     */
+    ShardContext.Scope forNewUser(User user);
+
+    void reindex(User user, String previousUsername, String previousEmail);
+
+    void unindex(User user);
+
+    /**
+     * Re-reads the bucket to shard map after another node moved buckets.
+     */
+    void reload();
+
+    /**
+     * Runs {@code query} once per shard, each in its own read-only transaction, and merges the results.
+     */
+    <T> List<T> scatter(Supplier<List<T>> query, Comparator<? super T> order);
+}
@@ -0,0 +1,46 @@
+package org.example.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    private int buckets = 256;
+    private int idBlockSize = 100;
+    private int directoryPoolSize = 4;
+    private Duration purgeDelay = Duration.ofSeconds(2);
+    private List<Shard> shards = new ArrayList<>();
+
+    public List<DataSourceProperties> dataSources(DataSourceProperties base) {
+        if (!enabled || shards.isEmpty()) {
+            return List.of(base);
+        }
+        List<DataSourceProperties> dataSources = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            DataSourceProperties properties = new DataSourceProperties();
+            properties.setDriverClassName(base.getDriverClassName());
+            properties.setUrl(shard.getUrl());
+            properties.setUsername(shard.getUsername() != null ? shard.getUsername() : base.getUsername());
+            properties.setPassword(shard.getPassword() != null ? shard.getPassword() : base.getPassword());
+            dataSources.add(properties);
+        }
+        return dataSources;
+    }
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
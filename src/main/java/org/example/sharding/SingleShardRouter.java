@@ -0,0 +1,62 @@
+package org.example.sharding;
+
+import org.example.entity.User;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class SingleShardRouter implements ShardRouter {
+
+    @Override
+    public int shardCount() {
+        return 1;
+    }
+
+    @Override
+    public int shardOf(long userId) {
+        return 0;
+    }
+
+    @Override
+    public ShardContext.Scope onShard(int shard) {
+        return ShardContext.Scope.NONE;
+    }
+
+    @Override
+    public ShardContext.Scope forUserId(Long userId) {
+        return ShardContext.Scope.NONE;
+    }
+
+    @Override
+    public ShardContext.Scope forUsername(String username) {
+        return ShardContext.Scope.NONE;
+    }
+
+    @Override
+    public ShardContext.Scope forEmail(String email) {
+        return ShardContext.Scope.NONE;
+    }
+
+    @Override
+    public ShardContext.Scope forNewUser(User user) {
+        return ShardContext.Scope.NONE;
+    }
+
+    @Override
+    public void reindex(User user, String previousUsername, String previousEmail) {
+    }
+
+    @Override
+    public void unindex(User user) {
+    }
+
+    @Override
+    public void reload() {
+    }
+
+    @Override
+    public <T> List<T> scatter(Supplier<List<T>> query, Comparator<? super T> order) {
+        return query.get();
+    }
+}
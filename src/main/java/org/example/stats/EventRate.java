@@ -0,0 +1,57 @@
+package org.example.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counter with a one-minute sliding window kept in per-second slots. Each slot packs the second it
+ * counts and its count into one long, so moving a slot to a new second and counting in it is a single
+ * compare-and-set and no increment is lost to a concurrent reset.
+ */
+class EventRate {
+    private static final int WINDOW_SECONDS = 60;
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final LongAdder total = new LongAdder();
+    private final AtomicLongArray slots = new AtomicLongArray(WINDOW_SECONDS);
+
+    void record(long epochSecond) {
+        total.increment();
+        int slot = (int) (epochSecond % WINDOW_SECONDS);
+        while (true) {
+            long current = slots.get(slot);
+            long second = current >>> COUNT_BITS;
+            long next;
+            if (second == epochSecond) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (second < epochSecond) {
+                next = (epochSecond << COUNT_BITS) | 1;
+            } else {
+                // A late caller from a second the slot has already moved past
+                return;
+            }
+            if (slots.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    long lastMinute(long epochSecond) {
+        long sum = 0;
+        for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+            long value = slots.get(slot);
+            if (epochSecond - (value >>> COUNT_BITS) < WINDOW_SECONDS) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.bulkhead.Bulkhead;
+import org.example.bulkhead.TrafficClass;
+import org.example.entity.UserRole;
+import org.example.entity.UserStatsDto;
+import org.example.repository.UserRepository;
+import org.example.repository.UserRoleCount;
+import org.example.service.UserChangedEvent;
+import org.example.sharding.ShardRouter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * User counts kept in memory so reads never touch the database. Committed changes on this node adjust
+ * the counters; a periodic {@code GROUP BY user_role} query replaces them, which also picks up changes
+ * made by other nodes. When a local change commits while the query runs, the change may or may not be
+ * included in its result, so the query is repeated; after {@value #RECONCILE_ATTEMPTS} attempts the last
+ * result is applied anyway, so a steady write rate cannot keep the counters from ever being corrected.
+ */
+@Slf4j
+@Component
+public class UserStats {
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final Map<UserRole, LongAdder> byRole = new EnumMap<>(UserRole.class);
+    private final EventRate created = new EventRate();
+    private final EventRate deleted = new EventRate();
+    private final ReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+    private final LongAdder mutations = new LongAdder();
+    private volatile Instant reconciledAt;
+
+    public UserStats(UserRepository userRepository, ShardRouter shardRouter) {
+        this.userRepository = userRepository;
+        this.shardRouter = shardRouter;
+        for (UserRole role : UserRole.values()) {
+            byRole.put(role, new LongAdder());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        long now = Instant.now().getEpochSecond();
+        reconcileLock.readLock().lock();
+        try {
+            apply(event, now);
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    private void apply(UserChangedEvent event, long now) {
+        switch (event.getType()) {
+            case CREATED:
+                byRole.get(event.getUserRole()).increment();
+                created.record(now);
+                break;
+            case UPDATED:
+                if (event.getUserRole() != event.getPreviousUserRole()) {
+                    byRole.get(event.getPreviousUserRole()).decrement();
+                    byRole.get(event.getUserRole()).increment();
+                }
+                break;
+            case DELETED:
+                byRole.get(event.getPreviousUserRole()).decrement();
+                deleted.record(now);
+                break;
+        }
+        mutations.increment();
+    }
+
+    @Bulkhead(TrafficClass.ADMIN)
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval:60000}")
+    public void reconcile() {
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            if (reconcile(attempt == RECONCILE_ATTEMPTS)) {
+                return;
+            }
+        }
+    }
+
+    private boolean reconcile(boolean lastAttempt) {
+        long before = mutations.sum();
+        Map<UserRole, Long> counts = new EnumMap<>(UserRole.class);
+        List<UserRoleCount> rows = shardRouter.scatter(userRepository::countByUserRole,
+                Comparator.comparing(UserRoleCount::getUserRole));
+        for (UserRoleCount row : rows) {
+            counts.merge(row.getUserRole(), row.getTotal(), Long::sum);
+        }
+        reconcileLock.writeLock().lock();
+        try {
+            if (mutations.sum() != before) {
+                if (!lastAttempt) {
+                    log.debug("Users changed while counting, repeating user stats reconcile");
+                    return false;
+                }
+                log.debug("Users kept changing while counting, applying user stats reconcile anyway");
+            }
+            for (UserRole role : UserRole.values()) {
+                LongAdder counter = byRole.get(role);
+                long drift = counts.getOrDefault(role, 0L) - counter.sum();
+                if (drift != 0) {
+                    counter.add(drift);
+                }
+            }
+            reconciledAt = Instant.now();
+            return true;
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+    }
+
+    public UserStatsDto snapshot() {
+        long now = Instant.now().getEpochSecond();
+        Map<UserRole, Long> roles = new EnumMap<>(UserRole.class);
+        long total = 0;
+        for (Map.Entry<UserRole, LongAdder> entry : byRole.entrySet()) {
+            long count = entry.getValue().sum();
+            roles.put(entry.getKey(), count);
+            total += count;
+        }
+        return UserStatsDto.builder()
+                .total(total)
+                .byRole(roles)
+                .created(created.total())
+                .deleted(deleted.total())
+                .createdLastMinute(created.lastMinute(now))
+                .deletedLastMinute(deleted.lastMinute(now))
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+}
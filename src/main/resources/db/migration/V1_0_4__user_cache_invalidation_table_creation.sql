@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS user_cache_invalidation (
+id BIGINT AUTO_INCREMENT PRIMARY KEY,
+user_id BIGINT,
+username VARCHAR (50),
+email VARCHAR (100),
+previous_username VARCHAR (50),
+previous_email VARCHAR (100),
+origin_node VARCHAR (64) NOT NULL,
+created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+INDEX idx_created_at (created_at));
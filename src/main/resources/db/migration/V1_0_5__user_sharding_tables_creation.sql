@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS user_shard_index (
+user_id BIGINT PRIMARY KEY,
+username VARCHAR (50) UNIQUE NOT NULL,
+email VARCHAR (100) UNIQUE NOT NULL);
+
+INSERT INTO user_shard_index (user_id, username, email)
+SELECT id, LOWER(username), LOWER(email) FROM user;
+
+CREATE TABLE IF NOT EXISTS user_id_allocator (
+id INT PRIMARY KEY,
+next_id BIGINT NOT NULL);
+
+INSERT INTO user_id_allocator (id, next_id)
+SELECT 1, COALESCE(MAX(id), 0) + 1 FROM user;
+
+CREATE TABLE IF NOT EXISTS user_shard_bucket (
+bucket INT PRIMARY KEY,
+shard INT NOT NULL);
@@ -0,0 +1,24 @@
+ALTER TABLE user
+ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+
+ALTER TABLE user
+ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+UPDATE user SET change_seq = id;
+
+CREATE INDEX idx_user_change_seq ON user (change_seq);
+
+CREATE TABLE IF NOT EXISTS user_change_sequence (
+id INT PRIMARY KEY,
+last_seq BIGINT NOT NULL,
+pruned_seq BIGINT NOT NULL);
+
+INSERT INTO user_change_sequence (id, last_seq, pruned_seq)
+SELECT 1, COALESCE(MAX(change_seq), 0), 0 FROM user;
+
+CREATE TABLE IF NOT EXISTS user_tombstone (
+user_id BIGINT PRIMARY KEY,
+change_seq BIGINT NOT NULL,
+deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+moved_to_shard INT NULL,
+INDEX idx_user_tombstone_change_seq (change_seq));
@@ -0,0 +1,4 @@
+ALTER TABLE user
+ADD COLUMN last_seen_at TIMESTAMP(3) NULL;
+
+CREATE INDEX idx_user_last_seen_at ON user (last_seen_at);
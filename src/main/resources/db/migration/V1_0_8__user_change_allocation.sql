@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS user_change_seq (
+seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3));
+
+INSERT INTO user_change_seq (seq)
+SELECT last_seq FROM user_change_sequence WHERE id = 1 AND last_seq > 0;
+
+ALTER TABLE user_change_sequence
+DROP COLUMN last_seq;
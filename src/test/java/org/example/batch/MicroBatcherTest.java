@@ -0,0 +1,96 @@
+package org.example.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MicroBatcherTest {
+
+    @Test
+    public void shouldMergeConcurrentLookupsIntoOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        // Key 1 plus one key per caller; the batch only closes once all of them are pending, never on the window
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(keys -> {
+            loads.incrementAndGet();
+            return names(keys);
+        }, 1, TimeUnit.MINUTES, 9);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Map<Long, String>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                List<Long> keys = List.of(1L, 10L + i);
+                results.add(CompletableFuture.supplyAsync(() -> batcher.getAll(keys), executor));
+            }
+            for (int i = 0; i < 8; i++) {
+                Map<Long, String> result = results.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals("user-1", result.get(1L));
+                assertEquals("user-" + (10 + i), result.get(10L + i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldFailFollowersWhenLoadThrowsError() throws Exception {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(keys -> {
+            throw new OutOfMemoryError("no room for the batch");
+        }, 1, TimeUnit.MINUTES, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Map<Long, String>> first = CompletableFuture.supplyAsync(
+                    () -> batcher.getAll(List.of(1L)), executor);
+            CompletableFuture<Map<Long, String>> second = CompletableFuture.supplyAsync(
+                    () -> batcher.getAll(List.of(2L)), executor);
+
+            for (CompletableFuture<Map<Long, String>> result : List.of(first, second)) {
+                ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(OutOfMemoryError.class, ex.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldLeaveMissingKeysOutOfResult() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(keys -> Map.of(1L, "user-1"),
+                0, TimeUnit.MILLISECONDS, 10);
+
+        Map<Long, String> result = batcher.getAll(List.of(1L, 2L));
+
+        assertEquals("user-1", result.get(1L));
+        assertFalse(result.containsKey(2L));
+    }
+
+    @Test
+    public void shouldPropagateLoadFailure() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(keys -> {
+            throw new IllegalStateException("database is down");
+        }, 0, TimeUnit.MILLISECONDS, 10);
+
+        assertThrows(IllegalStateException.class, () -> batcher.getAll(List.of(1L)));
+    }
+
+    private static Map<Long, String> names(Set<Long> keys) {
+        Map<Long, String> names = new HashMap<>();
+        keys.forEach(key -> names.put(key, "user-" + key));
+        return names;
+    }
+}
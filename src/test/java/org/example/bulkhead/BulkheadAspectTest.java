@@ -0,0 +1,147 @@
+package org.example.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.exception.BulkheadFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkheadAspectTest {
+    private final BulkheadProperties properties = new BulkheadProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Calls calls() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Calls());
+        factory.addAspect(new BulkheadAspect(properties, meterRegistry));
+        return factory.getProxy();
+    }
+
+    @Test
+    public void shouldRejectCallsOverLimitAfterAcquireTimeout() throws Exception {
+        properties.getAdmin().setMaxConcurrentCalls(1);
+        properties.getAdmin().setAcquireTimeout(Duration.ofMillis(20));
+        Calls calls = calls();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> calls.admin(() -> {
+            entered.countDown();
+            await(release);
+        }), executor);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        BulkheadFullException ex = assertThrows(BulkheadFullException.class, () -> calls.admin(() -> { }));
+
+        assertEquals(TrafficClass.ADMIN, ex.getTrafficClass());
+        assertEquals("Too many concurrent admin calls", ex.getMessage());
+        assertEquals(1.0, meterRegistry.get("bulkhead.calls.rejected").tag("class", "admin").counter().count());
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        calls.admin(() -> { });
+    }
+
+    @Test
+    public void shouldBindTrafficClassForTheCallOnly() {
+        Calls calls = calls();
+
+        calls.admin(() -> assertEquals(TrafficClass.ADMIN, BulkheadContext.current()));
+
+        assertFalse(BulkheadContext.isActive());
+        assertEquals(TrafficClass.INTERACTIVE, BulkheadContext.current());
+    }
+
+    @Test
+    public void shouldKeepOuterClassAndPermitForNestedCalls() {
+        properties.getAuth().setMaxConcurrentCalls(0);
+        properties.getAuth().setAcquireTimeout(Duration.ZERO);
+        Calls calls = calls();
+
+        calls.admin(() -> calls.auth(() -> assertEquals(TrafficClass.ADMIN, BulkheadContext.current())));
+
+        assertThrows(BulkheadFullException.class, () -> calls.auth(() -> { }));
+        assertFalse(BulkheadContext.isActive());
+    }
+
+    @Test
+    public void shouldRouteConnectionsToPoolOfBoundClass() throws Exception {
+        Map<TrafficClass, HikariDataSource> pools = Map.of(
+                TrafficClass.AUTH, pool(), TrafficClass.INTERACTIVE, pool(), TrafficClass.ADMIN, pool());
+        BulkheadRoutingDataSource dataSource = new BulkheadRoutingDataSource(pools);
+        dataSource.afterPropertiesSet();
+        Calls calls = calls();
+
+        calls.admin(() -> assertSame(connectionOf(pools.get(TrafficClass.ADMIN)), connection(dataSource)));
+        Connection outside = dataSource.getConnection();
+
+        assertSame(connectionOf(pools.get(TrafficClass.INTERACTIVE)), outside);
+        verify(pools.get(TrafficClass.AUTH), never()).getConnection();
+    }
+
+    private static HikariDataSource pool() throws Exception {
+        HikariDataSource pool = Mockito.mock(HikariDataSource.class);
+        Connection connection = Mockito.mock(Connection.class);
+        when(pool.getConnection()).thenReturn(connection);
+        return pool;
+    }
+
+    private static Connection connectionOf(HikariDataSource pool) {
+        try {
+            return pool.getConnection();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Connection connection(BulkheadRoutingDataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Calls {
+        @Bulkhead(TrafficClass.ADMIN)
+        public void admin(Runnable body) {
+            body.run();
+        }
+
+        @Bulkhead(TrafficClass.AUTH)
+        public void auth(Runnable body) {
+            body.run();
+        }
+    }
+}
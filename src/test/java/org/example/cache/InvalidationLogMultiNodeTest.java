@@ -0,0 +1,70 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.LilServiceTemplate;
+import org.example.entity.UserDto;
+import org.example.exception.NotFoundEntityException;
+import org.example.service.UserServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvalidationLogMultiNodeTest {
+    private static final String DATABASE_URL =
+            "jdbc:h2:mem:invalidation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(LilServiceTemplate.class)
+                .profiles("h2")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + DATABASE_URL,
+                        "app.cache.invalidation.node-id=" + nodeId,
+                        "app.cache.invalidation.poll-interval=50ms",
+                        "app.cache.negative.ttl=1m")
+                .run();
+    }
+
+    @Test
+    public void shouldApplyInvalidationWrittenByAnotherNode() throws Exception {
+        UserServiceImpl serviceA = nodeA.getBean(UserServiceImpl.class);
+        UserServiceImpl serviceB = nodeB.getBean(UserServiceImpl.class);
+        NegativeLookupCache cacheB = nodeB.getBean(NegativeLookupCache.class);
+
+        assertThrows(NotFoundEntityException.class, () -> serviceB.getUserByUsername("carol"));
+        assertTrue(cacheB.isMissing(UserLookupKey.username("carol")));
+
+        serviceA.createUser(new UserDto("carol", "carol@example.com", "password"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cacheB.isMissing(UserLookupKey.username("carol")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertFalse(cacheB.isMissing(UserLookupKey.username("carol")));
+        assertEquals("carol@example.com", serviceB.getUserByUsername("carol").getEmail());
+        assertTrue(nodeB.getBean(MeterRegistry.class).get("user.cache.invalidation.lag").timer().count() > 0);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.sharding.BucketsMovedEvent;
+import org.example.sharding.ShardRouter;
+import org.example.sharding.SingleShardRouter;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class InvalidationLogTest {
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:invalidation-"
+            + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final List<UserInvalidation> applied = new ArrayList<>();
+    private final ShardRouter shardRouter = Mockito.spy(new SingleShardRouter());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void migrate() {
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load().migrate();
+    }
+
+    private InvalidationLog invalidationLog(String nodeId) {
+        CacheInvalidationProperties properties = new CacheInvalidationProperties();
+        properties.setNodeId(nodeId);
+        properties.setBatchSize(10);
+        return new InvalidationLog(jdbcTemplate, new UserCacheInvalidator(List.of(applied::add)), properties,
+                meterRegistry, shardRouter);
+    }
+
+    private void insert(long userId, Timestamp createdAt) {
+        jdbcTemplate.update("INSERT INTO user_cache_invalidation (user_id, origin_node, created_at) VALUES (?, ?, ?)",
+                userId, "node-b", createdAt);
+    }
+
+    @Test
+    public void shouldPageThroughMoreRowsThanBatchSizeInsideGraceWindow() {
+        InvalidationLog invalidationLog = invalidationLog("node-a");
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (long userId = 1; userId <= 25; userId++) {
+            insert(userId, now);
+        }
+
+        invalidationLog.poll();
+        assertEquals(25, applied.size());
+
+        insert(26L, new Timestamp(now.getTime() + 1));
+        invalidationLog.poll();
+
+        assertEquals(26, applied.size());
+        assertEquals(26L, applied.get(25).userId());
+    }
+
+    @Test
+    public void shouldReloadShardRouterWhenAnotherNodeMovedBuckets() {
+        InvalidationLog invalidationLog = invalidationLog("node-a");
+        invalidationLog.poll();
+        CacheInvalidationProperties otherNode = new CacheInvalidationProperties();
+        otherNode.setNodeId("node-b");
+        InvalidationLog otherLog = new InvalidationLog(jdbcTemplate, new UserCacheInvalidator(List.of()), otherNode,
+                new SimpleMeterRegistry(), new SingleShardRouter());
+
+        otherLog.onBucketsMoved(new BucketsMovedEvent(8));
+        invalidationLog.poll();
+
+        verify(shardRouter).reload();
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    public void shouldNotReloadOnOwnBucketMove() {
+        InvalidationLog invalidationLog = invalidationLog("node-a");
+        invalidationLog.poll();
+
+        invalidationLog.onBucketsMoved(new BucketsMovedEvent(8));
+        invalidationLog.poll();
+
+        verify(shardRouter, never()).reload();
+    }
+
+    @Test
+    public void shouldMeasureLagOnDatabaseClock() {
+        jdbcTemplate.update("INSERT INTO user_cache_invalidation (user_id, origin_node, created_at) "
+                + "VALUES (1, 'node-b', TIMESTAMPADD(SECOND, -1, CURRENT_TIMESTAMP(3)))");
+
+        invalidationLog("node-a").poll();
+
+        Timer lag = meterRegistry.get("user.cache.invalidation.lag").timer();
+        assertEquals(1, lag.count());
+        assertTrue(lag.totalTime(TimeUnit.MILLISECONDS) >= 1_000);
+        assertTrue(lag.totalTime(TimeUnit.MILLISECONDS) < 60_000);
+    }
+}
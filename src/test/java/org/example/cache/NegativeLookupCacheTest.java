@@ -0,0 +1,66 @@
+package org.example.cache;
+
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.service.UserChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NegativeLookupCacheTest {
+
+    private NegativeLookupCache cache(Duration ttl, int maxEntries) {
+        NegativeLookupCacheProperties properties = new NegativeLookupCacheProperties();
+        properties.setTtl(ttl);
+        properties.setMaxEntries(maxEntries);
+        return new NegativeLookupCache(properties);
+    }
+
+    @Test
+    public void shouldRememberMissCaseInsensitively() {
+        NegativeLookupCache cache = cache(Duration.ofMinutes(1), 10);
+
+        cache.recordMiss(UserLookupKey.username("John_Doe"));
+
+        assertTrue(cache.isMissing(UserLookupKey.username("john_doe")));
+        assertFalse(cache.isMissing(UserLookupKey.email("john_doe")));
+    }
+
+    @Test
+    public void shouldForgetMissAfterTtl() {
+        NegativeLookupCache cache = cache(Duration.ZERO, 10);
+
+        cache.recordMiss(UserLookupKey.id(1L));
+
+        assertFalse(cache.isMissing(UserLookupKey.id(1L)));
+    }
+
+    @Test
+    public void shouldForgetMissWhenUserIsCreated() {
+        NegativeLookupCache cache = cache(Duration.ofMinutes(1), 10);
+        cache.recordMiss(UserLookupKey.id(1L));
+        cache.recordMiss(UserLookupKey.username("john_doe"));
+        cache.recordMiss(UserLookupKey.email("john.doe@example.com"));
+
+        cache.invalidate(UserInvalidation.of(UserChangedEvent.created(
+                new User(1L, "john_doe", "john.doe@example.com", "password", UserRole.ROLE_USER))));
+
+        assertFalse(cache.isMissing(UserLookupKey.id(1L)));
+        assertFalse(cache.isMissing(UserLookupKey.username("john_doe")));
+        assertFalse(cache.isMissing(UserLookupKey.email("john.doe@example.com")));
+    }
+
+    @Test
+    public void shouldNotGrowBeyondMaxEntries() {
+        NegativeLookupCache cache = cache(Duration.ofMinutes(1), 1);
+
+        cache.recordMiss(UserLookupKey.id(1L));
+        cache.recordMiss(UserLookupKey.id(2L));
+
+        assertTrue(cache.isMissing(UserLookupKey.id(1L)));
+        assertFalse(cache.isMissing(UserLookupKey.id(2L)));
+    }
+}
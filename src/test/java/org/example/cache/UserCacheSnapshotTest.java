@@ -0,0 +1,107 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.sharding.SingleShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UserCacheSnapshotTest {
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            "jdbc:h2:mem:snapshot-" + UUID.randomUUID() + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"));
+
+    private final UserResponseCache responseCache = new UserResponseCache(new ObjectMapper(),
+            new UserResponseCacheProperties(), new SimpleMeterRegistry());
+
+    private UserCacheSnapshot snapshot(UserLookupCache cache) {
+        UserLookupCacheProperties properties = new UserLookupCacheProperties();
+        properties.getSnapshot().setPath(directory.resolve("users.snapshot"));
+        return new UserCacheSnapshot(cache, new UserCacheInvalidator(List.of(cache, responseCache)), jdbcTemplate,
+                new SingleShardRouter(), properties, new SimpleMeterRegistry());
+    }
+
+    private static User user(long id, String username, long changeSeq) {
+        User user = new User(id, username, username + "@example.com", "$2a$04$hash", UserRole.ROLE_ADMIN);
+        user.setChangeSeq(changeSeq);
+        return user;
+    }
+
+    @Test
+    public void shouldRestoreWrittenSnapshotOwnerReadableOnly() throws Exception {
+        UserLookupCache cache = new UserLookupCache(new UserLookupCacheProperties());
+        cache.put(user(1L, "John_Doe", 7L), cache.version());
+        snapshot(cache).snapshot();
+
+        UserLookupCache restarted = new UserLookupCache(new UserLookupCacheProperties());
+        snapshot(restarted).afterPropertiesSet();
+
+        User restored = restarted.get(UserLookupKey.username("john_doe"));
+        assertNotNull(restored);
+        assertEquals(1L, restored.getId());
+        assertEquals("John_Doe@example.com", restored.getEmail());
+        assertEquals(7L, restored.getChangeSeq());
+        assertEquals(UserRole.ROLE_ADMIN, restored.getUserRole());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(directory.resolve("users.snapshot"))));
+        }
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotWrittenWithAnotherFormatVersion() throws Exception {
+        UserLookupCache cache = new UserLookupCache(new UserLookupCacheProperties());
+        cache.put(user(1L, "john_doe", 7L), cache.version());
+        snapshot(cache).snapshot();
+        try (FileChannel channel = FileChannel.open(directory.resolve("users.snapshot"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2).putShort(0, (short) 1), 4);
+        }
+
+        UserLookupCache restarted = new UserLookupCache(new UserLookupCacheProperties());
+        snapshot(restarted).afterPropertiesSet();
+
+        assertEquals(0, restarted.size());
+    }
+
+    @Test
+    public void shouldEvictUsersChangedWhileDown() throws Exception {
+        jdbcTemplate.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, change_seq BIGINT)");
+        jdbcTemplate.update("INSERT INTO user (id, change_seq) VALUES (1, 7), (2, 9)");
+        UserLookupCache cache = new UserLookupCache(new UserLookupCacheProperties());
+        cache.restore(List.of(user(1L, "unchanged", 7L), user(2L, "changed", 8L), user(3L, "deleted", 3L)));
+        assertNotNull(cache.get(UserLookupKey.username("deleted")));
+        assertNull(cache.getVerified(UserLookupKey.username("deleted")));
+        User changed = cache.get(UserLookupKey.id(2L));
+        responseCache.body(new UserResponseKey(UserLookupKey.username("changed"), "user", MediaType.APPLICATION_JSON,
+                false), () -> changed);
+
+        snapshot(cache).revalidate();
+
+        assertNotNull(cache.get(UserLookupKey.id(1L)));
+        assertNotNull(cache.getVerified(UserLookupKey.username("unchanged")));
+        assertNull(cache.get(UserLookupKey.id(2L)));
+        assertNull(cache.get(UserLookupKey.username("deleted")));
+        assertEquals(0, responseCache.size());
+    }
+}
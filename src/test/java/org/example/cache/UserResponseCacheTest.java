@@ -0,0 +1,81 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserResponseCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private UserResponseCache cache(DataSize maxSize) {
+        UserResponseCacheProperties properties = new UserResponseCacheProperties();
+        properties.setMaxSize(maxSize);
+        return new UserResponseCache(new ObjectMapper(), properties, new SimpleMeterRegistry());
+    }
+
+    private Supplier<User> loader(long id) {
+        return () -> {
+            loads.incrementAndGet();
+            return new User(id, "user" + id, "user" + id + "@example.com", "password", UserRole.ROLE_USER);
+        };
+    }
+
+    private static UserResponseKey key(UserLookupKey lookup, boolean gzip) {
+        return new UserResponseKey(lookup, "user", MediaType.APPLICATION_JSON, gzip);
+    }
+
+    @Test
+    public void shouldEncodeOnceAndGzipFromCachedJson() throws Exception {
+        UserResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+        byte[] json = cache.body(key(UserLookupKey.id(1L), false), loader(1L));
+        byte[] cached = cache.body(key(UserLookupKey.id(1L), false), loader(1L));
+        byte[] gzip = cache.body(key(UserLookupKey.id(1L), true), loader(1L));
+
+        assertEquals(1, loads.get());
+        assertArrayEquals(json, cached);
+        assertArrayEquals(json, new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes());
+    }
+
+    @Test
+    public void shouldDropEveryVariantOfInvalidatedUser() throws Exception {
+        UserResponseCache cache = cache(DataSize.ofMegabytes(1));
+        cache.body(key(UserLookupKey.id(1L), false), loader(1L));
+        cache.body(key(UserLookupKey.username("User1"), true), loader(1L));
+        cache.body(key(UserLookupKey.id(2L), false), loader(2L));
+
+        cache.invalidate(new UserInvalidation(1L, "user1", "user1@example.com", null, null));
+        cache.body(key(UserLookupKey.id(1L), false), loader(1L));
+        cache.body(key(UserLookupKey.username("user1"), true), loader(1L));
+        cache.body(key(UserLookupKey.id(2L), false), loader(2L));
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void shouldStayWithinByteBudget() throws Exception {
+        DataSize maxSize = DataSize.ofKilobytes(4);
+        UserResponseCache cache = cache(maxSize);
+
+        for (long id = 0; id < 100; id++) {
+            cache.body(key(UserLookupKey.id(id), false), loader(id));
+        }
+
+        assertTrue(cache.size() <= maxSize.toBytes());
+        cache.body(key(UserLookupKey.id(99L), false), loader(99L));
+        assertEquals(100, loads.get());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.changes;
+
+import org.example.entity.User;
+import org.example.entity.UserChanges;
+import org.example.entity.UserDto;
+import org.example.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class UserChangeLogTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserChangeLog userChangeLog;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String head() {
+        UserChanges page = userChangeLog.changes(null, 1000);
+        while (page.isHasMore()) {
+            page = userChangeLog.changes(page.getCursor(), 1000);
+        }
+        return page.getCursor();
+    }
+
+    private User create(String username) {
+        return userService.createUser(new UserDto(username, username + "@example.com", "password"));
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldEmitTombstoneForDeletedUser() {
+        String since = head();
+        User user = create("feed_deleted");
+
+        userService.deleteById(user.getId());
+
+        UserChanges changes = userChangeLog.changes(since, null);
+        assertEquals(List.of(user.getId()), changes.getDeleted());
+        assertTrue(changes.getUpdated().isEmpty());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_tombstone WHERE user_id = ?", Integer.class, user.getId()));
+    }
+
+    @Test
+    public void shouldPageThroughUsersAndTombstonesInSequenceOrder() {
+        String since = head();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(create("feed_paged" + i));
+        }
+        userService.deleteById(users.get(1).getId());
+        userService.deleteById(users.get(3).getId());
+        userService.updateUserById(users.get(0).getId(),
+                new UserDto("feed_renamed", "feed_renamed@example.com", "password"));
+
+        List<Long> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        UserChanges page;
+        do {
+            page = userChangeLog.changes(since, 2);
+            updated.addAll(ids(page.getUpdated()));
+            deleted.addAll(page.getDeleted());
+            pageSizes.add(page.getUpdated().size() + page.getDeleted().size());
+            since = page.getCursor();
+        } while (page.isHasMore());
+
+        assertEquals(List.of(users.get(2).getId(), users.get(4).getId(), users.get(0).getId()), updated);
+        assertEquals(List.of(users.get(1).getId(), users.get(3).getId()), deleted);
+        assertEquals(List.of(2, 2, 1), pageSizes);
+    }
+
+    @Test
+    public void shouldSkipTombstoneOfMovedUser() {
+        String since = head();
+        jdbcTemplate.update("INSERT INTO user_tombstone (user_id, change_seq, moved_to_shard) VALUES (?, ?, 1)",
+                1_000_000L, ChangeSequence.next(jdbcTemplate));
+
+        UserChanges changes = userChangeLog.changes(since, null);
+
+        assertTrue(changes.getDeleted().isEmpty());
+        assertFalse(changes.isHasMore());
+        assertNotEquals(since, changes.getCursor());
+    }
+
+    @Test
+    public void shouldHoldBackChangesThatHaveNotSettled() {
+        String since = head();
+        jdbcTemplate.update("INSERT INTO user_change_seq (created_at) "
+                + "VALUES (TIMESTAMPADD(SECOND, 60, CURRENT_TIMESTAMP(3)))");
+        Long seq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM user_change_seq", Long.class);
+        jdbcTemplate.update("INSERT INTO user_tombstone (user_id, change_seq) VALUES (?, ?)", 2_000_000L, seq);
+
+        UserChanges changes = userChangeLog.changes(since, null);
+
+        jdbcTemplate.update("DELETE FROM user_tombstone WHERE user_id = ?", 2_000_000L);
+        jdbcTemplate.update("UPDATE user_change_seq SET created_at = CURRENT_TIMESTAMP(3) WHERE seq = ?", seq);
+        assertTrue(changes.getDeleted().isEmpty());
+        assertEquals(since, changes.getCursor());
+    }
+
+    @Test
+    public void shouldRequireResyncAfterTombstonesWerePruned() {
+        String since = head();
+        User user = create("feed_pruned");
+        userService.deleteById(user.getId());
+        jdbcTemplate.update("UPDATE user_tombstone SET deleted_at = ? WHERE user_id = ?",
+                Timestamp.valueOf("2000-01-01 00:00:00"), user.getId());
+
+        userChangeLog.pruneTombstones();
+
+        assertTrue(userChangeLog.changes(since, null).isResyncRequired());
+        assertFalse(userChangeLog.changes(null, null).isResyncRequired());
+    }
+
+    @Test
+    public void shouldWakeLongPollOnCommit() throws Exception {
+        DeferredResult<UserChanges> result = userChangeLog.poll(head(), null);
+        assertFalse(result.hasResult());
+
+        User user = create("feed_polled");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(result.hasResult());
+        assertEquals(List.of(user.getId()), ids(((UserChanges) result.getResult()).getUpdated()));
+    }
+}
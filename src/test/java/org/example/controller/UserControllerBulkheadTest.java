@@ -0,0 +1,34 @@
+package org.example.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.bulkhead.admin.max-concurrent-calls=0",
+        "app.bulkhead.admin.acquire-timeout=0ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class UserControllerBulkheadTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "admin", password = "admin", roles = "ADMIN")
+    public void getAllUsers_shouldReturn503WhenAdminBulkheadIsFull() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/all"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().contentType("application/problem+json"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.detail").value("Too many concurrent admin calls"));
+    }
+}
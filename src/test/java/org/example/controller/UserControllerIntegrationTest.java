@@ -30,7 +30,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.cache.lookup.snapshot.enabled=false")
 @ContextConfiguration
 @AutoConfigureMockMvc
 public class UserControllerIntegrationTest {
@@ -76,6 +76,10 @@ public class UserControllerIntegrationTest {
     @Test
     @WithMockUser(username = "admin", password = "admin", roles = "ADMIN")
     public void deleteUserById_shouldSuccessfullyDelete() throws Exception {
+        when(userRepository.findById(1L)).thenReturn(
+                Optional.of(new User(1L, "user1", "user1@example.com", "password1", UserRole.ROLE_USER))
+        );
+
         String url = "/api/user/id/1";
         mockMvc.perform(MockMvcRequestBuilders.delete(url))
                 .andExpect(status().isOk());
@@ -106,6 +110,20 @@ public class UserControllerIntegrationTest {
                 .andExpect(content().json(jsonContent));
     }
 
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserById_shouldReturnProblemDetails() throws Exception {
+        when(userRepository.findById(404L)).thenReturn(Optional.empty());
+
+        String url = "/api/user/id/404";
+
+        mockMvc.perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType("application/problem+json"))
+                .andExpect(content().json("{\"title\":\"Not Found\",\"status\":404,"
+                        + "\"detail\":\"User 404 does not exists. User can't be found\"}"));
+    }
+
     @Test
     @WithMockUser(username = "user", password = "user", roles = "USER")
     public void getUserByUsername_shouldReturnUser() throws Exception {
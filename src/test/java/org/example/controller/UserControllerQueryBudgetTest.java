@@ -0,0 +1,245 @@
+package org.example.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.cache.UserLookupCache;
+import org.example.cache.UserResponseCache;
+import org.example.entity.User;
+import org.example.entity.UserDto;
+import org.example.entity.UserRole;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.example.jdbc.QueryStatsMatchers.indexedUserKeyLookups;
+import static org.example.jdbc.QueryStatsMatchers.noRepeatedStatements;
+import static org.example.jdbc.QueryStatsMatchers.statementCount;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class UserControllerQueryBudgetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserLookupCache userLookupCache;
+    @Autowired
+    private UserResponseCache userResponseCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+        userLookupCache.clear();
+        userResponseCache.clear();
+        user = userRepository.save(new User(null, "user1", "user1@example.com", "password1", UserRole.ROLE_USER));
+        userRepository.save(new User(null, "user2", "user2@example.com", "password2", UserRole.ROLE_ADMIN));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", password = "admin", roles = "ADMIN")
+    public void getAllUsers_shouldRunSingleStatement() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/all"))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserById_shouldRunSingleStatement() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserByEmail_shouldBeServedFromCacheAfterLookupById() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/email/user1@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(0));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserById_shouldServeCachedGzipBodyAfterUpdate() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(0));
+
+        UserDto userToUpdate = UserDto.builder()
+                .username("user1")
+                .email("user1-updated@example.com")
+                .password("password1")
+                .build();
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/user/id/" + user.getId())
+                        .content(new ObjectMapper().writeValueAsString(userToUpdate))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.email").value("user1-updated@example.com"))
+                .andExpect(statementCount(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserByUsername_shouldRunSingleStatement() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/username/user1"))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUserByEmail_shouldRunSingleStatement() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/email/user1@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(1));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void createUser_shouldCheckUniquenessInsertLogInvalidationAndStampChange() throws Exception {
+        UserDto userToSave = UserDto.builder()
+                .username("user3")
+                .email("user3@example.com")
+                .password("password3")
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/user")
+                        .content(new ObjectMapper().writeValueAsString(userToSave))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(6))
+                .andExpect(noRepeatedStatements());
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void updateUserById_shouldSelectUpdateLogInvalidationAndStampChange() throws Exception {
+        UserDto userToUpdate = UserDto.builder()
+                .username("user1")
+                .email("user1-updated@example.com")
+                .password("password1")
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/user/id/" + user.getId())
+                        .content(new ObjectMapper().writeValueAsString(userToUpdate))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(5));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void updateUserByUsername_shouldSelectUpdateLogInvalidationAndStampChange() throws Exception {
+        UserDto userToUpdate = UserDto.builder()
+                .username("user1")
+                .email("user1-updated@example.com")
+                .password("password1")
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/user/username/user1")
+                        .content(new ObjectMapper().writeValueAsString(userToUpdate))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(5));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", password = "admin", roles = "ADMIN")
+    public void deleteUserById_shouldSelectDeleteLogInvalidationAndWriteTombstone() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/user/id/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statementCount(5));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", password = "admin", roles = "ADMIN")
+    public void getChanges_shouldReadSequenceUsersAndTombstones() throws Exception {
+        UserDto userToUpdate = UserDto.builder()
+                .username("user1")
+                .email("user1-changed@example.com")
+                .password("password1")
+                .build();
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/user/id/" + user.getId())
+                        .content(new ObjectMapper().writeValueAsString(userToUpdate))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/changes").param("since", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[0].email").value("user1-changed@example.com"))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(statementCount(3));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUsersBatch_shouldRunSingleStatementPerKeyType() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/batch")
+                        .param("ids", String.valueOf(user.getId()), "0")
+                        .param("usernames", "User1", "user2", "missing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids.notFound[0]").value(0))
+                .andExpect(jsonPath("$.usernames.found.User1.email").value("user1@example.com"))
+                .andExpect(jsonPath("$.usernames.notFound[0]").value("missing"))
+                .andExpect(jsonPath("$.emails").doesNotExist())
+                .andExpect(statementCount(2));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUsersBatch_shouldServeRepeatedKeysFromCaches() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/batch")
+                        .param("usernames", "user1", "user2", "missing"))
+                .andExpect(statementCount(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/batch")
+                        .param("ids", String.valueOf(user.getId()))
+                        .param("usernames", "user1", "user2", "missing")
+                        .param("emails", "user2@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernames.found.user2.email").value("user2@example.com"))
+                .andExpect(jsonPath("$.usernames.notFound[0]").value("missing"))
+                .andExpect(statementCount(0));
+    }
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void getUsersBatch_shouldLookUpUsernamesAndEmailsThroughIndexes() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/batch")
+                        .param("usernames", "user2", "missing")
+                        .param("emails", "missing@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernames.found.user2.email").value("user2@example.com"))
+                .andExpect(statementCount(2))
+                .andExpect(indexedUserKeyLookups(jdbcTemplate));
+    }
+}
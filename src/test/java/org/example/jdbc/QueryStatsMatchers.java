@@ -0,0 +1,70 @@
+package org.example.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class QueryStatsMatchers {
+
+    private static final Pattern USER_KEY_LOOKUP = Pattern.compile("\\.(username|email) in \\(\\?\\.\\.\\.\\)",
+            Pattern.CASE_INSENSITIVE);
+
+    private QueryStatsMatchers() {
+    }
+
+    public static ResultMatcher statementCount(int expected) {
+        return result -> {
+            QueryStats stats = statsOf(result);
+            assertEquals(expected, stats.getStatements(),
+                    () -> "Unexpected statement count, executed: " + stats.getStatementsByShape());
+        };
+    }
+
+    public static ResultMatcher noRepeatedStatements() {
+        return result -> {
+            QueryStats stats = statsOf(result);
+            assertTrue(stats.getMaxRepeats() <= 1,
+                    () -> "Statement executed more than once per request: " + stats.getStatementsByShape());
+        };
+    }
+
+    /**
+     * Explains every username/email IN lookup the request ran and fails when the plan does not use an index.
+     * Reads the {@code key} column of a MySQL plan and the scan type of an H2 plan.
+     */
+    public static ResultMatcher indexedUserKeyLookups(JdbcTemplate jdbcTemplate) {
+        return result -> {
+            List<String> lookups = statsOf(result).getStatementsByShape().keySet().stream()
+                    .filter(shape -> USER_KEY_LOOKUP.matcher(shape).find())
+                    .collect(Collectors.toList());
+            assertFalse(lookups.isEmpty(), "No username/email lookup was executed");
+            for (String shape : lookups) {
+                String sql = "EXPLAIN " + shape.replace("(?...)", "('user1', 'user2')");
+                for (Map<String, Object> row : jdbcTemplate.queryForList(sql)) {
+                    if (row.containsKey("key")) {
+                        assertNotNull(row.get("key"), () -> "Lookup does not use an index: " + shape + " " + row);
+                    } else {
+                        assertFalse(row.values().toString().contains("tableScan"),
+                                () -> "Lookup scans the table: " + shape + " " + row);
+                    }
+                }
+            }
+        };
+    }
+
+    private static QueryStats statsOf(MvcResult result) {
+        QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE);
+        assertNotNull(stats, "Query inspection is not active for this request");
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JfrPhaseAnalyzerTest {
+    @TempDir
+    Path directory;
+
+    private static void spin(Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    public void shouldAttributeSelfTimeToNestedPhases() throws Exception {
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/user-service.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+            long requestId = JfrContext.begin();
+            HttpRequestEvent http = new HttpRequestEvent();
+            http.begin();
+            ServiceOperationEvent service = new ServiceOperationEvent();
+            service.begin();
+            RepositoryCallEvent repository = new RepositoryCallEvent();
+            repository.begin();
+            spin(Duration.ofMillis(20));
+            repository.end();
+            repository.requestId = requestId;
+            repository.commit();
+            spin(Duration.ofMillis(5));
+            service.end();
+            service.requestId = requestId;
+            service.commit();
+            ExceptionOutcomeEvent.emit(new IllegalStateException(), 500);
+            http.end();
+            http.requestId = requestId;
+            http.endpoint = "GET /api/user/id/{userId}";
+            http.status = 500;
+            http.commit();
+            JfrContext.end();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, JfrPhaseAnalyzer.EndpointPhases> endpoints = JfrPhaseAnalyzer.analyze(file);
+
+        JfrPhaseAnalyzer.EndpointPhases phases = endpoints.get("GET /api/user/id/{userId}");
+        assertEquals(1, phases.requests());
+        assertEquals(1, phases.errors());
+        long[] selfNanos = phases.selfNanos();
+        assertTrue(selfNanos[2] >= Duration.ofMillis(20).toNanos());
+        assertTrue(selfNanos[1] >= Duration.ofMillis(5).toNanos());
+        assertTrue(selfNanos[0] >= 0);
+        assertEquals(phases.totalNanos(), selfNanos[0] + selfNanos[1] + selfNanos[2] + selfNanos[3]);
+    }
+}
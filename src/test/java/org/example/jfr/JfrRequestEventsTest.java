@@ -0,0 +1,131 @@
+package org.example.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.cache.UserLookupCache;
+import org.example.cache.UserResponseCache;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.repository.UserRepository;
+import org.example.service.UserServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJAopUtils;
+import org.springframework.aop.aspectj.AspectJPrecedenceInformation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class JfrRequestEventsTest {
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserServiceImpl userService;
+    @Autowired
+    private UserLookupCache userLookupCache;
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Test
+    @WithMockUser(username = "user", password = "user", roles = "USER")
+    public void shouldShareRequestIdAcrossNestedEvents() throws Exception {
+        User user = userRepository.save(new User(null, "jfr_user", "jfr_user@example.com", "password",
+                UserRole.ROLE_USER));
+        userLookupCache.clear();
+        userResponseCache.clear();
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/user-service.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        Path file = directory.resolve("request.jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/" + user.getId()))
+                    .andExpect(status().isOk());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> requests = events(file, HttpRequestEvent.NAME).stream()
+                .filter(event -> "GET /api/user/id/{userId}".equals(event.getString("endpoint")))
+                .collect(Collectors.toList());
+        assertEquals(1, requests.size());
+        long requestId = requests.get(0).getLong("requestId");
+        assertTrue(requestId > 0);
+        assertEquals(200, requests.get(0).getInt("status"));
+
+        List<String> operations = operationsOf(file, ServiceOperationEvent.NAME, "operation", requestId);
+        List<String> repositoryCalls = operationsOf(file, RepositoryCallEvent.NAME, "method", requestId);
+        assertEquals(List.of("getUser"), operations);
+        assertEquals(List.of("findById"), repositoryCalls);
+        userRepository.delete(user);
+    }
+
+    @Test
+    public void shouldAdviseRepositoryProxyAndKeepBulkheadInsideJfrAndOutsideTransaction() {
+        assertTrue(adviceOrder(userRepository).contains("jfrPhaseAspect"));
+
+        List<String> serviceAdvice = adviceOrder(userService);
+        int jfr = serviceAdvice.indexOf("jfrPhaseAspect");
+        int bulkhead = serviceAdvice.indexOf("bulkheadAspect");
+        int transaction = serviceAdvice.indexOf("transaction");
+        assertTrue(jfr >= 0 && bulkhead > jfr && transaction > bulkhead, serviceAdvice.toString());
+    }
+
+    private static List<String> adviceOrder(Object proxy) {
+        List<String> names = new ArrayList<>();
+        for (Advisor advisor : ((Advised) proxy).getAdvisors()) {
+            AspectJPrecedenceInformation aspect = AspectJAopUtils.getAspectJPrecedenceInformationFor(advisor);
+            if (aspect != null) {
+                names.add(aspect.getAspectName());
+            } else if (advisor.getAdvice() instanceof TransactionInterceptor) {
+                names.add("transaction");
+            }
+        }
+        return names;
+    }
+
+    private static List<RecordedEvent> events(Path file, String name) throws Exception {
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> operationsOf(Path file, String name, String field, long requestId)
+            throws Exception {
+        return events(file, name).stream()
+                .filter(event -> event.getLong("requestId") == requestId)
+                .map(event -> event.getString(field))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,175 @@
+package org.example.lastseen;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.sharding.ShardRouter;
+import org.example.sharding.SingleShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+public class LastSeenTrackerTest {
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:last-seen-" + UUID.randomUUID() + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final LastSeenProperties properties = new LastSeenProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ShardRouter shardRouter = new SingleShardRouter();
+
+    @AfterEach
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, last_seen_at TIMESTAMP(3))");
+        jdbcTemplate.update("INSERT INTO user (id) VALUES (1), (2), (3)");
+    }
+
+    private LastSeenTracker tracker() {
+        return new LastSeenTracker(jdbcTemplate, new DataSourceTransactionManager(dataSource), shardRouter,
+                properties, meterRegistry);
+    }
+
+    private Long lastSeen(long userId) {
+        Timestamp lastSeen = jdbcTemplate.queryForObject("SELECT last_seen_at FROM user WHERE id = ?",
+                Timestamp.class, userId);
+        return lastSeen != null ? lastSeen.getTime() : null;
+    }
+
+    @Test
+    public void shouldCoalesceHitsAndFlushLatest() {
+        properties.setBatchSize(1);
+        LastSeenTracker tracker = tracker();
+
+        tracker.record(1L, 2_000L);
+        tracker.record(1L, 3_000L);
+        tracker.record(1L, 1_000L);
+        tracker.record(2L, 5_000L);
+        assertEquals(2, tracker.buffered());
+
+        tracker.flush();
+
+        assertEquals(0, tracker.buffered());
+        assertEquals(3_000L, lastSeen(1L));
+        assertEquals(5_000L, lastSeen(2L));
+        assertNull(lastSeen(3L));
+    }
+
+    @Test
+    public void shouldNeverMoveLastSeenBackwards() {
+        LastSeenTracker tracker = tracker();
+        tracker.record(1L, 5_000L);
+        tracker.flush();
+
+        tracker.record(1L, 4_000L);
+        tracker.destroy();
+
+        assertEquals(5_000L, lastSeen(1L));
+    }
+
+    @Test
+    public void shouldDropNewUsersWhileBufferIsFull() {
+        properties.setMaxBufferedUsers(1);
+        LastSeenTracker tracker = tracker();
+
+        tracker.record(1L, 1_000L);
+        tracker.record(2L, 1_000L);
+        tracker.record(1L, 2_000L);
+        tracker.flush();
+
+        assertEquals(2_000L, lastSeen(1L));
+        assertNull(lastSeen(2L));
+    }
+
+    @Test
+    public void shouldSkipUsersThatMatchNoRow() {
+        LastSeenTracker tracker = tracker();
+        tracker.record(1L, 5_000L);
+        tracker.flush();
+
+        tracker.record(1L, 4_000L);
+        tracker.record(99L, 4_000L);
+        tracker.flush();
+
+        assertEquals(0, tracker.buffered());
+        assertEquals(2.0, meterRegistry.get("user.last_seen.skipped").counter().count());
+        assertEquals(1.0, meterRegistry.get("user.last_seen.flushed").counter().count());
+    }
+
+    @Test
+    public void shouldRequeueUserWhoseBucketMovedDuringFlush() {
+        shardRouter = Mockito.spy(new SingleShardRouter());
+        when(shardRouter.shardOf(99L)).thenReturn(0, 1);
+        LastSeenTracker tracker = tracker();
+
+        tracker.record(99L, 4_000L);
+        tracker.flush();
+
+        assertEquals(1, tracker.buffered());
+        assertEquals(0.0, meterRegistry.get("user.last_seen.skipped").counter().count());
+    }
+
+    @Test
+    public void shouldRecordSuccessfulLogin() {
+        LastSeenTracker tracker = tracker();
+        User user = new User(2L, "user2", "user2@example.com", "password", UserRole.ROLE_USER);
+
+        tracker.onAuthenticationSuccess(new AuthenticationSuccessEvent(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities())));
+        tracker.flush();
+
+        assertNotNull(lastSeen(2L));
+        assertNull(lastSeen(1L));
+    }
+
+    @Test
+    public void shouldRecordAuthenticatedRequestThroughFilter() throws Exception {
+        LastSeenTracker tracker = tracker();
+        User user = new User(3L, "user3", "user3@example.com", "password", UserRole.ROLE_USER);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        MockFilterChain chain = new MockFilterChain();
+
+        new LastSeenFilter(tracker).doFilter(new MockHttpServletRequest("GET", "/api/user/id/3"),
+                new MockHttpServletResponse(), chain);
+        tracker.flush();
+
+        assertNotNull(chain.getRequest());
+        assertNotNull(lastSeen(3L));
+    }
+
+    @Test
+    public void shouldIgnoreAnonymousRequests() throws Exception {
+        LastSeenTracker tracker = tracker();
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymous",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        new LastSeenFilter(tracker).doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertEquals(0, tracker.buffered());
+    }
+}
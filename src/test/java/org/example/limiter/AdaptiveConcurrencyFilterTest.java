@@ -0,0 +1,146 @@
+package org.example.limiter;
+
+import org.example.bulkhead.TrafficClass;
+import org.example.exception.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AdaptiveConcurrencyFilterTest {
+    private final ConcurrencyLimiter limiter = Mockito.mock(ConcurrencyLimiter.class);
+    private final MockMvc mockMvc;
+
+    public AdaptiveConcurrencyFilterTest() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        mockMvc = MockMvcBuilders.standaloneSetup(new Endpoints())
+                .addFilters(new AdaptiveConcurrencyFilter(limiter, properties))
+                .build();
+        when(limiter.tryAcquire(Mockito.any())).thenReturn(true);
+    }
+
+    @Test
+    public void shouldPutLoginsAndSingleReadsInHighLane() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/1"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/username/user1"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/login"));
+        verify(limiter, Mockito.times(3)).tryAcquire(Lane.HIGH);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/all"));
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/user/id/1"));
+        verify(limiter, Mockito.times(2)).tryAcquire(Lane.LOW);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health"));
+        verify(limiter, Mockito.times(5)).tryAcquire(Mockito.any());
+    }
+
+    @Test
+    public void shouldShedWithProblemAndRetryAfterWhenLimitIsReached() throws Exception {
+        when(limiter.tryAcquire(Lane.LOW)).thenReturn(false);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/all"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(content().contentType("application/problem+json"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.detail").value("Too many concurrent requests, retry later"));
+        verify(limiter, never()).release(anyLong(), anyBoolean());
+        verify(limiter, never()).release();
+    }
+
+    @Test
+    public void shouldRoundRetryAfterUpToWholeSeconds() {
+        assertEquals("1", AdaptiveConcurrencyFilter.retryAfterSeconds(Duration.ZERO));
+        assertEquals("1", AdaptiveConcurrencyFilter.retryAfterSeconds(Duration.ofMillis(500)));
+        assertEquals("2", AdaptiveConcurrencyFilter.retryAfterSeconds(Duration.ofMillis(1500)));
+        assertEquals("3", AdaptiveConcurrencyFilter.retryAfterSeconds(Duration.ofSeconds(3)));
+    }
+
+    @Test
+    public void shouldReleaseWithoutSampleWhenRequestGoesAsync() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/changes/poll"))
+                .andExpect(request().asyncStarted());
+
+        verify(limiter).release();
+        verify(limiter, never()).release(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void shouldSampleSuccessfulRequestAsNotDropped() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/1")).andExpect(status().isOk());
+
+        verify(limiter).release(anyLong(), eq(false));
+    }
+
+    @Test
+    public void shouldNotCountOrdinaryFailureAsDrop() {
+        assertThrows(Exception.class, () -> mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/-1")));
+
+        verify(limiter).release(anyLong(), eq(false));
+    }
+
+    @Test
+    public void shouldCountFullBulkheadAsDrop() {
+        assertThrows(Exception.class, () -> mockMvc.perform(MockMvcRequestBuilders.get("/api/user/id/0")));
+
+        verify(limiter).release(anyLong(), eq(true));
+    }
+
+    @Test
+    public void shouldRecognizeSaturationFailures() {
+        assertTrue(AdaptiveConcurrencyFilter.isSaturation(new BulkheadFullException(TrafficClass.AUTH)));
+        assertTrue(AdaptiveConcurrencyFilter.isSaturation(new AuthenticationServiceException(
+                "Password hashing capacity exceeded", new RejectedExecutionException())));
+        assertTrue(AdaptiveConcurrencyFilter.isSaturation(new AuthenticationServiceException(
+                "Password hashing timed out", new TimeoutException())));
+        assertFalse(AdaptiveConcurrencyFilter.isSaturation(new AuthenticationServiceException("Database is down")));
+        assertFalse(AdaptiveConcurrencyFilter.isSaturation(new IllegalStateException()));
+    }
+
+    @RestController
+    public static class Endpoints {
+        @GetMapping("/api/user/id/{userId}")
+        public String user(@PathVariable long userId) {
+            if (userId == 0) {
+                throw new BulkheadFullException(TrafficClass.INTERACTIVE);
+            }
+            if (userId < 0) {
+                throw new IllegalArgumentException("Negative id");
+            }
+            return "user";
+        }
+
+        @GetMapping("/api/user/changes/poll")
+        public DeferredResult<String> poll() {
+            return new DeferredResult<>();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private static ConcurrencyLimitProperties properties(int initialLimit) {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(2);
+        properties.setLowLaneShare(0.5);
+        return properties;
+    }
+
+    @Test
+    public void shouldKeepHeadroomForHighPriorityLane() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties(4), new SimpleMeterRegistry());
+
+        assertTrue(limiter.tryAcquire(Lane.LOW));
+        assertTrue(limiter.tryAcquire(Lane.LOW));
+        assertFalse(limiter.tryAcquire(Lane.LOW));
+        assertTrue(limiter.tryAcquire(Lane.HIGH));
+        assertTrue(limiter.tryAcquire(Lane.HIGH));
+        assertFalse(limiter.tryAcquire(Lane.HIGH));
+    }
+
+    @Test
+    public void shouldShrinkLimitWhenLatencyRises() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties(20), new SimpleMeterRegistry());
+        saturate(limiter, 200, TimeUnit.MILLISECONDS.toNanos(10));
+        int settled = limiter.getLimit();
+
+        saturate(limiter, 200, TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertTrue(limiter.getLimit() < settled, "limit " + limiter.getLimit() + " should be below " + settled);
+    }
+
+    @Test
+    public void shouldBackOffOnDroppedRequests() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties(20), new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(Lane.HIGH);
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+
+        assertEquals(18, limiter.getLimit());
+    }
+
+    private static void saturate(ConcurrencyLimiter limiter, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            int acquired = 0;
+            while (limiter.tryAcquire(Lane.HIGH)) {
+                acquired++;
+            }
+            for (int j = 0; j < acquired; j++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.security;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.jfr.PasswordEncodingEvent;
+import org.example.limiter.AdaptiveConcurrencyFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedPasswordEncoderTest {
+    @TempDir
+    Path directory;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 1,
+            Duration.ofSeconds(10));
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    private void saturate() throws InterruptedException {
+        CompletableFuture.runAsync(() -> encoder.encode("running"));
+        CompletableFuture.runAsync(() -> encoder.encode("queued"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((encoder.getExecutor().getActiveCount() < 1 || encoder.getExecutor().getQueue().size() < 1)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void shouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        saturate();
+
+        assertThrows(AuthenticationServiceException.class, () -> encoder.matches("password", "encoded"));
+    }
+
+    @Test
+    public void shouldRejectAndRecordUnexecutedEventWhileRecording() throws Exception {
+        Path file = directory.resolve("password.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PasswordEncodingEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            saturate();
+
+            assertThrows(AuthenticationServiceException.class, () -> encoder.matches("password", "encoded"));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> rejected = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(PasswordEncodingEvent.NAME))
+                .filter(event -> "matches".equals(event.getString("operation")))
+                .collect(Collectors.toList());
+        assertEquals(1, rejected.size());
+        assertFalse(rejected.get(0).getBoolean("executed"));
+    }
+
+    @Test
+    public void shouldCancelAttemptThatOutlivesWaitTimeout() {
+        BoundedPasswordEncoder impatient = new BoundedPasswordEncoder(new BlockingEncoder(release), 1, 1,
+                Duration.ofMillis(50));
+        try {
+            AuthenticationServiceException ex = assertThrows(AuthenticationServiceException.class,
+                    () -> impatient.encode("password"));
+
+            assertTrue(ex.getCause() instanceof TimeoutException);
+            assertTrue(AdaptiveConcurrencyFilter.isSaturation(ex));
+        } finally {
+            impatient.destroy();
+        }
+    }
+
+    @Test
+    public void shouldDelegateWhenCapacityIsAvailable() {
+        release.countDown();
+
+        assertEquals("encoded:password", encoder.encode("password"));
+        assertTrue(encoder.matches("password", "encoded:password"));
+    }
+
+    private static final class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch release;
+
+        private BlockingEncoder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "encoded:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("encoded:" + rawPassword);
+        }
+
+        private void await() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
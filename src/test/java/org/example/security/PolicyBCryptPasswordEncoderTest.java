@@ -0,0 +1,31 @@
+package org.example.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PolicyBCryptPasswordEncoderTest {
+    private final PolicyBCryptPasswordEncoder encoder = new PolicyBCryptPasswordEncoder(6);
+
+    @Test
+    public void shouldKeepHashWithPolicyCost() {
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+    }
+
+    @Test
+    public void shouldUpgradeWeakerHash() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+    }
+
+    @Test
+    public void shouldDowngradeStrongerHash() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(7).encode("password")));
+    }
+
+    @Test
+    public void shouldIgnoreForeignEncoding() {
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.security;
+
+import org.example.entity.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.Expression;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RouteAuthorizationManagerTest {
+    private final RouteAuthorizationManager manager = RouteAuthorizationManager.builder()
+            .route(RoleRequirement.anyOf(UserRole.ROLE_ADMIN, UserRole.ROLE_USER), "/api/user/**")
+            .route(RoleRequirement.PERMIT_ALL, "/", "/home")
+            .route(RoleRequirement.AUTHENTICATED, "/actuator/health/**")
+            .route(RoleRequirement.anyOf(UserRole.ROLE_ADMIN), "/actuator/**")
+            .otherwise(RoleRequirement.AUTHENTICATED);
+
+    private final DefaultWebSecurityExpressionHandler expressionHandler = new DefaultWebSecurityExpressionHandler();
+
+    private boolean legacyDecision(MockHttpServletRequest request, Authentication authentication) {
+        Map<AntPathRequestMatcher, String> rules = new LinkedHashMap<>();
+        rules.put(new AntPathRequestMatcher("/api/user/**"), "hasAnyRole('ROLE_ADMIN','ROLE_USER')");
+        rules.put(new AntPathRequestMatcher("/"), "permitAll");
+        rules.put(new AntPathRequestMatcher("/home"), "permitAll");
+        rules.put(new AntPathRequestMatcher("/actuator/health/**"), "authenticated");
+        rules.put(new AntPathRequestMatcher("/actuator/**"), "hasRole('ROLE_ADMIN')");
+        String rule = rules.entrySet().stream()
+                .filter(entry -> entry.getKey().matches(request))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse("authenticated");
+        Expression expression = expressionHandler.getExpressionParser().parseExpression(rule);
+        FilterInvocation invocation =
+                new FilterInvocation(request, new MockHttpServletResponse(), new MockFilterChain());
+        return ExpressionUtils.evaluateAsBoolean(expression,
+                expressionHandler.createEvaluationContext(authentication, invocation));
+    }
+
+    private boolean granted(String path, Authentication authentication) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return manager.check(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+    }
+
+    @Test
+    public void shouldDecideLikeTheAntMatcherChain() {
+        List<Authentication> authentications = List.of(
+                new AnonymousAuthenticationToken("key", "anonymous",
+                        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")),
+                new UsernamePasswordAuthenticationToken("user", null, UserRole.ROLE_USER.getAuthorities()),
+                new UsernamePasswordAuthenticationToken("admin", null, UserRole.ROLE_ADMIN.getAuthorities()),
+                new UsernamePasswordAuthenticationToken("other", null,
+                        AuthorityUtils.createAuthorityList("ROLE_OTHER")));
+        List<String> paths = List.of("/", "/home", "/home/", "/api/user", "/api/user/", "/api/user/all",
+                "/api/user/id/1", "/api/users", "/api", "/login", "/actuator/health", "/actuator/health/db",
+                "/actuator", "/actuator/metrics", "/actuator/querystats");
+
+        for (String path : paths) {
+            for (Authentication authentication : authentications) {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+                request.setServletPath(path);
+                boolean expected = legacyDecision(request, authentication);
+                boolean actual = manager.check(() -> authentication, new RequestAuthorizationContext(request))
+                        .isGranted();
+                assertEquals(expected, actual, path + " as " + authentication.getName());
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepActuatorEndpointsExceptHealthAdminOnly() {
+        Authentication user = new UsernamePasswordAuthenticationToken("user", null,
+                UserRole.ROLE_USER.getAuthorities());
+        Authentication admin = new UsernamePasswordAuthenticationToken("admin", null,
+                UserRole.ROLE_ADMIN.getAuthorities());
+
+        assertFalse(granted("/actuator/querystats", user));
+        assertFalse(granted("/actuator/metrics", user));
+        assertTrue(granted("/actuator/querystats", admin));
+        assertTrue(granted("/actuator/health", user));
+    }
+
+    @Test
+    public void shouldRejectUnsupportedPatterns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RouteAuthorizationManager.builder().route(RoleRequirement.PERMIT_ALL, "/api/*/all"));
+    }
+}
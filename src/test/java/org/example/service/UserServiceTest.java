@@ -1,5 +1,8 @@
 package org.example.service;
 
+import org.example.cache.NegativeLookupCache;
+import org.example.cache.UserLookupCache;
+import org.example.cache.UserLookupKey;
 import org.example.entity.User;
 import org.example.entity.UserDto;
 import org.example.entity.UserRole;
@@ -7,6 +10,8 @@ import org.example.entity.mapper.UserMapper;
 import org.example.exception.NotFoundEntityException;
 import org.example.exception.NotUniqueEntityException;
 import org.example.repository.UserRepository;
+import org.example.sharding.ShardRouter;
+import org.example.sharding.SingleShardRouter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -14,14 +19,17 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,6 +45,18 @@ public class UserServiceTest {
     @Spy
     private UserMapper userMapper;
 
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Mock
+    private UserLookupCache userLookupCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ShardRouter shardRouter = new SingleShardRouter();
+
     @Test
     public void shouldSuccessfullyCreateUser() {
         UserDto userToCreate = UserDto.builder()
@@ -77,13 +97,42 @@ public class UserServiceTest {
         assertEquals(mockUsers.get(1), result.get(1));
     }
 
+    @Test
+    public void shouldLoadOnlyUsersMissingFromLookupCacheInBatch() {
+        User cached = new User(1L, "user1", "user1@example.com", "password1", UserRole.ROLE_USER);
+        User loaded = new User(2L, "user2", "user2@example.com", "password2", UserRole.ROLE_ADMIN);
+        when(userLookupCache.get(UserLookupKey.username("user1"))).thenReturn(cached);
+        when(userLookupCache.version()).thenReturn(7L);
+        when(userRepository.findAllByUsernameIn(List.of("user2"))).thenReturn(List.of(loaded));
+
+        Map<String, User> result = userService.getUsersByUsernames(List.of("User1", "user2"));
+
+        assertEquals(Map.of("user1", cached, "user2", loaded), result);
+        verify(userRepository).findAllByUsernameIn(List.of("user2"));
+        verify(userLookupCache).put(loaded, 7L);
+    }
+
     @Test
     public void shouldDeleteUser() {
         Long userIdToDelete = 1L;
+        User userToDelete = new User(userIdToDelete, "john_doe", "john.doe@example.com", "password", UserRole.ROLE_USER);
+
+        when(userRepository.findById(userIdToDelete)).thenReturn(Optional.of(userToDelete));
 
         userService.deleteById(userIdToDelete);
 
-        verify(userRepository, times(1)).deleteById(userIdToDelete);
+        verify(userRepository, times(1)).delete(userToDelete);
+        verify(eventPublisher, times(1)).publishEvent(UserChangedEvent.deleted(userToDelete));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenDeletingMissingUser() {
+        Long userIdToDelete = 999L;
+
+        when(userRepository.findById(userIdToDelete)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundEntityException.class, () -> userService.deleteById(userIdToDelete),
+                "Exception should be thrown when deleting a user that does not exist.");
     }
 
     @Test
@@ -147,6 +196,18 @@ public class UserServiceTest {
         verify(userRepository, times(1)).findById(userId);
     }
 
+    @Test
+    public void shouldNotQueryRepositoryForKnownMissingUserId() {
+        Long userId = 999L;
+
+        when(negativeLookupCache.isMissing(UserLookupKey.id(userId))).thenReturn(true);
+
+        assertThrows(NotFoundEntityException.class, () -> userService.getUser(userId),
+                "Exception should be thrown when user with specified id is known to be missing.");
+
+        verify(userRepository, never()).findById(userId);
+    }
+
     @Test
     public void shouldReturnUserByUsername() {
         String username = "john_doe";
@@ -262,5 +323,20 @@ public class UserServiceTest {
         UserDetails returnedUser = userService.loadUserByUsername(username);
 
         assertEquals(expectedUser, returnedUser);
+        verify(userLookupCache, never()).get(Mockito.any());
+    }
+
+    @Test
+    public void shouldRehashPasswordOfExistingUser() {
+        String username = "john_doe";
+        User existingUser = new User(1L, username, "john.doe@example.com", "$2a$12$old", UserRole.ROLE_USER);
+
+        when(userRepository.findByUsernameIgnoreCase(username)).thenReturn(Optional.of(existingUser));
+        when(userRepository.save(existingUser)).thenReturn(existingUser);
+
+        UserDetails returnedUser = userService.updatePassword(existingUser, "{bcrypt}$2a$11$new");
+
+        assertEquals("{bcrypt}$2a$11$new", returnedUser.getPassword());
+        verify(userRepository, times(1)).save(existingUser);
     }
 }
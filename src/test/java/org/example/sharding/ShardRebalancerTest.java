@@ -0,0 +1,165 @@
+package org.example.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.bulkhead.BulkheadRoutingDataSource;
+import org.example.bulkhead.TrafficClass;
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.exception.NotUniqueEntityException;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardRebalancerTest {
+    private ShardRoutingDataSource shards;
+    private ShardDirectory directory;
+    private HashShardRouter router;
+    private ShardRebalancer rebalancer;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        List<BulkheadRoutingDataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            dataSources.add(shard("jdbc:h2:mem:shard-" + shard + "-" + UUID.randomUUID()
+                    + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"));
+        }
+        shards = new ShardRoutingDataSource(dataSources);
+        shards.afterPropertiesSet();
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setBuckets(16);
+        properties.setIdBlockSize(10);
+        properties.setPurgeDelay(Duration.ZERO);
+        directory = new ShardDirectory(shards.getShard(0));
+        router = new HashShardRouter(directory, properties, 2, new DataSourceTransactionManager(shards));
+        rebalancer = new ShardRebalancer(shards, directory, router, properties, events::add);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        shards.close();
+    }
+
+    @Test
+    public void shouldAllocateIdsInBlocks() {
+        assertEquals(1L, directory.allocateIds(10));
+        assertEquals(11L, directory.allocateIds(10));
+    }
+
+    @Test
+    public void shouldRejectDuplicateUsernameAcrossShards() {
+        insert(user("john_doe", "john@example.com"));
+
+        assertThrows(NotUniqueEntityException.class,
+                () -> router.forNewUser(user("John_Doe", "other@example.com")).close());
+    }
+
+    @Test
+    public void shouldMoveUsersToTheirShardOnRebalance() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(insert(user("user" + i, "user" + i + "@example.com")));
+        }
+        assertEquals(20L, count(0));
+
+        Map<String, Object> result = rebalancer.rebalance();
+
+        assertEquals(8, result.get("movedBuckets"));
+        assertEquals(List.of(new BucketsMovedEvent(8)), events);
+        assertEquals(20L, count(0) + count(1));
+        for (User user : users) {
+            int shard = router.shardOf(user.getId());
+            assertEquals(1, new JdbcTemplate(shards.getShard(shard)).queryForObject(
+                    "SELECT COUNT(*) FROM user WHERE id = ?", Integer.class, user.getId()));
+            try (ShardContext.Scope ignored = router.forUsername(user.getUsername())) {
+                assertEquals(shard, ShardContext.current());
+            }
+        }
+    }
+
+    @Test
+    public void shouldRestampMovedUsersAndLeaveTombstonesOnSource() {
+        for (int i = 0; i < 20; i++) {
+            insert(user("user" + i, "user" + i + "@example.com"));
+        }
+        long targetSeqBefore = lastSeq(1);
+
+        rebalancer.rebalance();
+
+        JdbcTemplate target = new JdbcTemplate(shards.getShard(1));
+        List<Long> moved = target.queryForList("SELECT id FROM user", Long.class);
+        assertFalse(moved.isEmpty());
+        assertEquals(targetSeqBefore + moved.size(), lastSeq(1));
+        assertEquals(moved.size(), target.queryForObject(
+                "SELECT COUNT(DISTINCT change_seq) FROM user WHERE change_seq > ?", Integer.class, targetSeqBefore));
+        JdbcTemplate source = new JdbcTemplate(shards.getShard(0));
+        for (Long id : moved) {
+            assertEquals(1, source.queryForObject(
+                    "SELECT moved_to_shard FROM user_tombstone WHERE user_id = ?", Integer.class, id));
+        }
+        assertEquals(lastSeq(0), source.queryForObject("SELECT MAX(change_seq) FROM user_tombstone", Long.class));
+    }
+
+    private long lastSeq(int shard) {
+        return new JdbcTemplate(shards.getShard(shard)).queryForObject(
+                "SELECT COALESCE(MAX(seq), 0) FROM user_change_seq", Long.class);
+    }
+
+    private User insert(User user) {
+        try (ShardContext.Scope ignored = router.forNewUser(user)) {
+            new JdbcTemplate(shards).update(
+                    "INSERT INTO user (id, username, email, password, user_role) VALUES (?, ?, ?, ?, ?)",
+                    user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), user.getUserRole().name());
+        }
+        return user;
+    }
+
+    private long count(int shard) {
+        return new JdbcTemplate(shards.getShard(shard)).queryForObject("SELECT COUNT(*) FROM user", Long.class);
+    }
+
+    private static User user(String username, String email) {
+        return User.builder()
+                .username(username)
+                .email(email)
+                .password("password")
+                .userRole(UserRole.ROLE_USER)
+                .build();
+    }
+
+    private static BulkheadRoutingDataSource shard(String url) {
+        Map<TrafficClass, HikariDataSource> pools = new EnumMap<>(TrafficClass.class);
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(url);
+            dataSource.setMaximumPoolSize(2);
+            pools.put(trafficClass, dataSource);
+        }
+        HikariDataSource migrations = pools.get(TrafficClass.INTERACTIVE);
+        Flyway.configure().dataSource(migrations).locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load().migrate();
+        // Start from an empty shard instead of the seeded default users
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(migrations);
+        jdbcTemplate.update("DELETE FROM user");
+        jdbcTemplate.update("DELETE FROM user_shard_index");
+        jdbcTemplate.update("UPDATE user_id_allocator SET next_id = 1");
+        BulkheadRoutingDataSource bulkheadDataSource = new BulkheadRoutingDataSource(pools);
+        bulkheadDataSource.afterPropertiesSet();
+        return bulkheadDataSource;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.sharding;
+
+import org.example.entity.User;
+import org.example.entity.UserDto;
+import org.example.exception.NotFoundEntityException;
+import org.example.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.buckets=16",
+        "app.sharding.id-block-size=10",
+        "app.sharding.purge-delay=0s",
+        "app.sharding.shards[0].url=" + ShardedUserServiceTest.SHARD_0,
+        "app.sharding.shards[1].url=" + ShardedUserServiceTest.SHARD_1})
+@ActiveProfiles("h2")
+public class ShardedUserServiceTest {
+    static final String SHARD_0 = "jdbc:h2:mem:sharded-0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;"
+            + "DB_CLOSE_DELAY=-1";
+    static final String SHARD_1 = "jdbc:h2:mem:sharded-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;"
+            + "DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+    @Autowired
+    private ShardRoutingDataSource shards;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shards.getShard(shard));
+    }
+
+    private int count(int shard, String table, String column, Long id) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?",
+                Integer.class, id);
+    }
+
+    @Test
+    public void shouldCreateReadUpdateAndDeleteUsersOnEveryShard() {
+        // Every bucket starts on shard 0; spread them before creating users
+        shardRebalancer.rebalance();
+        List<User> created = new ArrayList<>();
+        User onShardOne = null;
+        for (int i = 0; i < 64 && (onShardOne == null || created.size() < 4); i++) {
+            User user = userService.createUser(new UserDto("sharded" + i, "sharded" + i + "@example.com", "password"));
+            created.add(user);
+            if (shardRouter.shardOf(user.getId()) == 1) {
+                onShardOne = user;
+            }
+        }
+        assertNotNull(onShardOne);
+
+        for (User user : created) {
+            int shard = shardRouter.shardOf(user.getId());
+            assertEquals(1, count(shard, "user", "id", user.getId()));
+            assertEquals(0, count(1 - shard, "user", "id", user.getId()));
+            assertEquals(user.getId(), userService.getUserByUsername(user.getUsername()).getId());
+        }
+        assertTrue(jdbc(1).queryForObject("SELECT change_seq FROM user WHERE id = ?", Long.class,
+                onShardOne.getId()) > 0);
+
+        Long id = onShardOne.getId();
+        String previousUsername = onShardOne.getUsername();
+        userService.updateUserById(id, new UserDto("sharded_renamed", "sharded_renamed@example.com", "password"));
+        assertEquals(id, userService.getUserByUsername("sharded_renamed").getId());
+        assertThrows(NotFoundEntityException.class, () -> userService.getUserByUsername(previousUsername));
+
+        userService.deleteById(id);
+        assertEquals(0, count(1, "user", "id", id));
+        assertEquals(1, count(1, "user_tombstone", "user_id", id));
+        assertThrows(NotFoundEntityException.class, () -> userService.getUser(id));
+        assertTrue(userService.getAllUsers().stream().noneMatch(user -> user.getId().equals(id)));
+    }
+}
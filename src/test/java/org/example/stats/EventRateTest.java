@@ -0,0 +1,61 @@
+package org.example.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventRateTest {
+
+    @Test
+    public void shouldNotLoseEventsWhenSlotMovesToNewSecond() throws Exception {
+        EventRate rate = new EventRate();
+        rate.record(1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                writers.add(CompletableFuture.runAsync(() -> {
+                    for (int n = 0; n < 10_000; n++) {
+                        rate.record(1_060);
+                    }
+                }, executor));
+            }
+            for (CompletableFuture<Void> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(40_000, rate.lastMinute(1_060));
+        assertEquals(40_001, rate.total());
+    }
+
+    @Test
+    public void shouldDropSecondsOutsideWindow() {
+        EventRate rate = new EventRate();
+        rate.record(1_000);
+        rate.record(1_030);
+
+        assertEquals(2, rate.lastMinute(1_059));
+        assertEquals(1, rate.lastMinute(1_060));
+        assertEquals(0, rate.lastMinute(1_090));
+    }
+
+    @Test
+    public void shouldIgnoreLateEventForSecondSlotHasMovedPast() {
+        EventRate rate = new EventRate();
+        rate.record(1_060);
+        rate.record(1_000);
+
+        assertEquals(1, rate.lastMinute(1_060));
+        assertEquals(2, rate.total());
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.stats;
+
+import org.example.entity.User;
+import org.example.entity.UserRole;
+import org.example.entity.UserStatsDto;
+import org.example.repository.UserRepository;
+import org.example.repository.UserRoleCount;
+import org.example.service.UserChangedEvent;
+import org.example.sharding.SingleShardRouter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserStatsTest {
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final UserStats userStats = new UserStats(userRepository, new SingleShardRouter());
+
+    @Test
+    public void shouldCountCommittedChanges() {
+        User user = new User(1L, "user1", "user1@example.com", "password", UserRole.ROLE_USER);
+        userStats.onUserChanged(UserChangedEvent.created(user));
+        userStats.onUserChanged(UserChangedEvent.created(
+                new User(2L, "user2", "user2@example.com", "password", UserRole.ROLE_USER)));
+        user.setUserRole(UserRole.ROLE_ADMIN);
+        userStats.onUserChanged(UserChangedEvent.updated(user, "user1", "user1@example.com", UserRole.ROLE_USER));
+        userStats.onUserChanged(UserChangedEvent.deleted(user));
+
+        UserStatsDto stats = userStats.snapshot();
+
+        assertEquals(1, stats.getTotal());
+        assertEquals(1L, stats.getByRole().get(UserRole.ROLE_USER));
+        assertEquals(0L, stats.getByRole().get(UserRole.ROLE_ADMIN));
+        assertEquals(2, stats.getCreatedLastMinute());
+        assertEquals(1, stats.getDeleted());
+    }
+
+    @Test
+    public void shouldReplaceCountersOnReconcile() {
+        when(userRepository.countByUserRole()).thenReturn(List.of(
+                roleCount(UserRole.ROLE_ADMIN, 3), roleCount(UserRole.ROLE_USER, 40)));
+
+        userStats.reconcile();
+
+        UserStatsDto stats = userStats.snapshot();
+        assertEquals(43, stats.getTotal());
+        assertEquals(3L, stats.getByRole().get(UserRole.ROLE_ADMIN));
+        assertNotNull(stats.getReconciledAt());
+    }
+
+    @Test
+    public void shouldApplyReconcileAfterRetriesWhenUsersKeepChanging() {
+        AtomicLong nextId = new AtomicLong();
+        when(userRepository.countByUserRole()).thenAnswer(invocation -> {
+            long id = nextId.incrementAndGet();
+            userStats.onUserChanged(UserChangedEvent.created(
+                    new User(id, "user" + id, "user" + id + "@example.com", "password", UserRole.ROLE_USER)));
+            return List.of(roleCount(UserRole.ROLE_USER, 40));
+        });
+
+        userStats.reconcile();
+
+        verify(userRepository, times(3)).countByUserRole();
+        assertEquals(40L, userStats.snapshot().getByRole().get(UserRole.ROLE_USER));
+        assertNotNull(userStats.snapshot().getReconciledAt());
+    }
+
+    private static UserRoleCount roleCount(UserRole role, long total) {
+        return new UserRoleCount() {
+            @Override
+            public UserRole getUserRole() {
+                return role;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+}